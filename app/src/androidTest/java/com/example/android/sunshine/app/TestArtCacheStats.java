@@ -0,0 +1,37 @@
+package com.example.android.sunshine.app;
+
+import android.graphics.Bitmap;
+import android.test.AndroidTestCase;
+
+import com.bumptech.glide.request.RequestListener;
+
+public class TestArtCacheStats extends AndroidTestCase {
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        ArtCacheStats.reset();
+    }
+
+    public void testCountsHitsMissesAndFailures() {
+        RequestListener<String, Bitmap> listener = ArtCacheStats.listener();
+        Bitmap bitmap = Bitmap.createBitmap(1, 1, Bitmap.Config.ARGB_8888);
+
+        assertFalse(listener.onResourceReady(bitmap, "clear", null, true, true));
+        assertFalse(listener.onResourceReady(bitmap, "clear", null, true, true));
+        assertFalse(listener.onResourceReady(bitmap, "rain", null, false, true));
+        assertFalse(listener.onException(new Exception(), "fog", null, true));
+
+        assertEquals(2, ArtCacheStats.getMemoryHits());
+        assertEquals(1, ArtCacheStats.getMisses());
+        assertEquals(1, ArtCacheStats.getFailures());
+        assertEquals("memoryHits=2 misses=1 failures=1", ArtCacheStats.dumpStats());
+    }
+
+    public void testArtPackFormatsEveryCondition() {
+        PreferencesSnapshot prefs = PreferencesSnapshot.get(getContext());
+        for (String condition : PreferencesSnapshot.ART_CONDITIONS) {
+            assertEquals(String.format(prefs.artPack, condition), prefs.getArtUrl(condition));
+        }
+    }
+}
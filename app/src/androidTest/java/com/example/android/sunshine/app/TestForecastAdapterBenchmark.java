@@ -0,0 +1,156 @@
+package com.example.android.sunshine.app;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.support.v7.view.ContextThemeWrapper;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.test.AndroidTestCase;
+import android.util.Log;
+import android.view.View;
+import android.widget.AbsListView;
+
+import com.example.android.sunshine.app.data.WeatherContract;
+
+/**
+ * Cost of binding forecast rows, formatted on the spot from a plain cursor as the adapter used
+ * to, against rows formatted ahead of time by the {@link ForecastLoader}. The numbers are logged
+ * rather than asserted since they depend on the device; compare runs with
+ * {@code adb logcat -s TestForecastAdapterBenchmark}.
+ */
+public class TestForecastAdapterBenchmark extends AndroidTestCase {
+
+    public static final String LOG_TAG = TestForecastAdapterBenchmark.class.getSimpleName();
+
+    private static final long DAY_IN_MILLIS = 24 * 60 * 60 * 1000;
+    private static final int ROUNDS = 20;
+
+    private Context mThemedContext;
+    private RecyclerView mRecyclerView;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mThemedContext = new ContextThemeWrapper(getContext(), R.style.AppTheme);
+        mRecyclerView = new RecyclerView(mThemedContext);
+        mRecyclerView.setLayoutManager(new LinearLayoutManager(mThemedContext));
+    }
+
+    /*
+        Returns a cursor with the columns of ForecastFragment's projection, one row a day from
+        today on.
+     */
+    static MatrixCursor createForecastCursor(int rowCount) {
+        return createForecastCursor(0, rowCount);
+    }
+
+    /*
+        Returns a cursor with the columns of ForecastFragment's projection, one row a day from
+        firstDay days after today on. A day has the same values whatever the first day is.
+     */
+    static MatrixCursor createForecastCursor(int firstDay, int rowCount) {
+        MatrixCursor cursor = new MatrixCursor(new String[] {
+                WeatherContract.WeatherEntry._ID,
+                WeatherContract.WeatherEntry.COLUMN_DATE,
+                WeatherContract.WeatherEntry.COLUMN_SHORT_DESC,
+                WeatherContract.WeatherEntry.COLUMN_MAX_TEMP,
+                WeatherContract.WeatherEntry.COLUMN_MIN_TEMP,
+                WeatherContract.LocationEntry.COLUMN_LOCATION_SETTING,
+                WeatherContract.WeatherEntry.COLUMN_WEATHER_ID,
+                WeatherContract.LocationEntry.COLUMN_COORD_LAT,
+                WeatherContract.LocationEntry.COLUMN_COORD_LONG
+        });
+        long today = WeatherContract.normalizeDate(System.currentTimeMillis());
+        int[] weatherIds = {800, 801, 802, 500, 501, 600, 211, 741};
+        for (int i = firstDay; i < firstDay + rowCount; i++) {
+            cursor.addRow(new Object[] {
+                    i + 1, today + i * DAY_IN_MILLIS, "Clear", 20.0 + i % 10, 5.0 - i % 7,
+                    "94043", weatherIds[i % weatherIds.length], 37.4, -122.1
+            });
+        }
+        return cursor;
+    }
+
+    private ForecastAdapter createAdapter(Cursor cursor) {
+        ForecastAdapter adapter = new ForecastAdapter(mThemedContext, null,
+                new View(mThemedContext), AbsListView.CHOICE_MODE_NONE);
+        adapter.swapCursor(cursor);
+        return adapter;
+    }
+
+    /*
+        Binds every row ROUNDS times and returns the average time per bind, in microseconds.
+     */
+    private long timeBinds(ForecastAdapter adapter) {
+        int count = adapter.getItemCount();
+        ForecastAdapter.ForecastAdapterViewHolder[] holders =
+                new ForecastAdapter.ForecastAdapterViewHolder[2];
+        for (int position = 0; position < Math.min(2, count); position++) {
+            holders[position] = adapter.onCreateViewHolder(mRecyclerView,
+                    adapter.getItemViewType(position));
+        }
+
+        // Warm up
+        for (int position = 0; position < count; position++) {
+            adapter.onBindViewHolder(holders[Math.min(position, 1)], position);
+        }
+        long start = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int position = 0; position < count; position++) {
+                adapter.onBindViewHolder(holders[Math.min(position, 1)], position);
+            }
+        }
+        return (System.nanoTime() - start) / (ROUNDS * count) / 1000;
+    }
+
+    private void benchmark(int rowCount) {
+        long onTheSpotMicros = timeBinds(createAdapter(createForecastCursor(rowCount)));
+
+        MatrixCursor cursor = createForecastCursor(rowCount);
+        long start = System.nanoTime();
+        ForecastRow[] rows = ForecastRow.fromAllRows(getContext(), cursor);
+        long formatMicros = (System.nanoTime() - start) / 1000;
+        long preformattedMicros = timeBinds(
+                createAdapter(new ForecastLoader.ForecastCursor(cursor, rows, null)));
+
+        Log.i(LOG_TAG, rowCount + " rows: formatting on bind " + onTheSpotMicros
+                + " us/bind, preformatted " + preformattedMicros + " us/bind, formatting all "
+                + "rows in the background took " + formatMicros + " us");
+    }
+
+    public void testBind14Rows() {
+        benchmark(14);
+    }
+
+    public void testBind100Rows() {
+        benchmark(100);
+    }
+
+    public void testPreformattedRowsMatch() {
+        MatrixCursor cursor = createForecastCursor(14);
+        ForecastAdapter onTheSpot = createAdapter(createForecastCursor(14));
+        ForecastAdapter preformatted = createAdapter(new ForecastLoader.ForecastCursor(cursor,
+                ForecastRow.fromAllRows(getContext(), cursor), null));
+        for (int position = 0; position < 14; position++) {
+            int viewType = onTheSpot.getItemViewType(position);
+            ForecastAdapter.ForecastAdapterViewHolder expected =
+                    onTheSpot.onCreateViewHolder(mRecyclerView, viewType);
+            ForecastAdapter.ForecastAdapterViewHolder actual =
+                    preformatted.onCreateViewHolder(mRecyclerView, viewType);
+            onTheSpot.onBindViewHolder(expected, position);
+            preformatted.onBindViewHolder(actual, position);
+
+            assertEquals(expected.mDateView.getText().toString(),
+                    actual.mDateView.getText().toString());
+            assertEquals(expected.mDescriptionView.getText().toString(),
+                    actual.mDescriptionView.getText().toString());
+            assertEquals(expected.mDescriptionView.getContentDescription().toString(),
+                    actual.mDescriptionView.getContentDescription().toString());
+            assertEquals(expected.mHighTempView.getText().toString(),
+                    actual.mHighTempView.getText().toString());
+            assertEquals(expected.mLowTempView.getContentDescription().toString(),
+                    actual.mLowTempView.getContentDescription().toString());
+        }
+    }
+}
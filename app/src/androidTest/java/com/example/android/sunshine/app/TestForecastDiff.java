@@ -0,0 +1,144 @@
+package com.example.android.sunshine.app;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.support.v7.view.ContextThemeWrapper;
+import android.support.v7.widget.RecyclerView;
+import android.test.AndroidTestCase;
+import android.view.View;
+import android.widget.AbsListView;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks that {@link ForecastDiff} finds exactly the rows that changed, and that the
+ * {@link ForecastAdapter} notifies them instead of the whole list.
+ */
+public class TestForecastDiff extends AndroidTestCase {
+
+    private Context mThemedContext;
+    private ForecastAdapter mAdapter;
+    private List<String> mNotifications;
+    private ForecastRow[] mLastRows;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mThemedContext = new ContextThemeWrapper(getContext(), R.style.AppTheme);
+        mAdapter = new ForecastAdapter(mThemedContext, null, new View(mThemedContext),
+                AbsListView.CHOICE_MODE_SINGLE);
+        mNotifications = new ArrayList<String>();
+        mAdapter.registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
+            @Override
+            public void onChanged() {
+                mNotifications.add("changed all");
+            }
+
+            @Override
+            public void onItemRangeChanged(int positionStart, int itemCount) {
+                mNotifications.add("changed " + positionStart + "+" + itemCount);
+            }
+
+            @Override
+            public void onItemRangeInserted(int positionStart, int itemCount) {
+                mNotifications.add("inserted " + positionStart + "+" + itemCount);
+            }
+
+            @Override
+            public void onItemRangeRemoved(int positionStart, int itemCount) {
+                mNotifications.add("removed " + positionStart + "+" + itemCount);
+            }
+        });
+    }
+
+    /*
+        Builds the cursor the ForecastLoader would deliver after the one before.
+     */
+    private ForecastLoader.ForecastCursor load(Cursor cursor) {
+        ForecastRow[] rows = ForecastRow.fromAllRows(getContext(), cursor);
+        ForecastDiff diff = mLastRows == null ? null : ForecastDiff.compute(mLastRows, rows);
+        mLastRows = rows;
+        return new ForecastLoader.ForecastCursor(cursor, rows, diff);
+    }
+
+    /*
+        Returns a copy of cursor with the high of every position in [from, to] raised.
+     */
+    private static MatrixCursor raiseHighs(MatrixCursor cursor, int from, int to) {
+        MatrixCursor copy = new MatrixCursor(cursor.getColumnNames());
+        for (int position = 0; position < cursor.getCount(); position++) {
+            cursor.moveToPosition(position);
+            Object[] values = new Object[cursor.getColumnCount()];
+            for (int column = 0; column < values.length; column++) {
+                values[column] = column == ForecastFragment.COL_WEATHER_MAX_TEMP
+                        ? cursor.getDouble(column) + (position >= from && position <= to ? 3 : 0)
+                        : cursor.getString(column);
+            }
+            copy.addRow(values);
+        }
+        return copy;
+    }
+
+    public void testFirstLoadNotifiesEverything() {
+        mAdapter.swapCursor(load(TestForecastAdapterBenchmark.createForecastCursor(14)));
+        assertEquals("[changed all]", mNotifications.toString());
+        assertEquals(14, mAdapter.getItemCount());
+    }
+
+    public void testNewDayRemovesTheFirstRowAndAddsTheLast() {
+        mAdapter.swapCursor(load(TestForecastAdapterBenchmark.createForecastCursor(0, 14)));
+        long secondDate = mAdapter.getItemId(1);
+        mNotifications.clear();
+
+        mAdapter.swapCursor(load(TestForecastAdapterBenchmark.createForecastCursor(1, 14)));
+        // The row that moved to the top is rebound with the today layout
+        assertEquals("[removed 0+1, inserted 13+1, changed 0+1]", mNotifications.toString());
+        assertEquals(secondDate, mAdapter.getItemId(0));
+    }
+
+    public void testChangedTemperaturesOnlyNotifyTheirRows() {
+        MatrixCursor cursor = TestForecastAdapterBenchmark.createForecastCursor(14);
+        mAdapter.swapCursor(load(cursor));
+        mNotifications.clear();
+
+        mAdapter.swapCursor(load(raiseHighs(cursor, 3, 5)));
+        assertEquals("[changed 3+3]", mNotifications.toString());
+    }
+
+    public void testSameDataNotifiesNothing() {
+        mAdapter.swapCursor(load(TestForecastAdapterBenchmark.createForecastCursor(14)));
+        mNotifications.clear();
+
+        mAdapter.swapCursor(load(TestForecastAdapterBenchmark.createForecastCursor(14)));
+        assertEquals("[]", mNotifications.toString());
+    }
+
+    public void testDiffFromOtherRowsNotifiesEverything() {
+        mAdapter.swapCursor(load(TestForecastAdapterBenchmark.createForecastCursor(14)));
+        // A cursor the adapter never showed, e.g. after the loader was reset
+        load(TestForecastAdapterBenchmark.createForecastCursor(5));
+        mNotifications.clear();
+
+        mAdapter.swapCursor(load(TestForecastAdapterBenchmark.createForecastCursor(14)));
+        assertEquals("[changed all]", mNotifications.toString());
+    }
+
+    public void testComputeCoalescesRanges() {
+        ForecastRow[] oldRows = ForecastRow.fromAllRows(getContext(),
+                TestForecastAdapterBenchmark.createForecastCursor(0, 10));
+        ForecastRow[] newRows = ForecastRow.fromAllRows(getContext(),
+                TestForecastAdapterBenchmark.createForecastCursor(3, 14));
+
+        List<ForecastDiff.Operation> operations =
+                ForecastDiff.compute(oldRows, newRows).getOperations();
+        assertEquals(2, operations.size());
+        assertEquals(ForecastDiff.REMOVE, operations.get(0).type);
+        assertEquals(0, operations.get(0).position);
+        assertEquals(3, operations.get(0).count);
+        assertEquals(ForecastDiff.INSERT, operations.get(1).type);
+        assertEquals(7, operations.get(1).position);
+        assertEquals(7, operations.get(1).count);
+    }
+}
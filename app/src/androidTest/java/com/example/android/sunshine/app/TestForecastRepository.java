@@ -0,0 +1,104 @@
+package com.example.android.sunshine.app;
+
+import android.database.MatrixCursor;
+import android.test.AndroidTestCase;
+
+import com.example.android.sunshine.app.data.WeatherContract;
+import com.example.android.sunshine.app.data.WeatherContract.WeatherEntry;
+import com.example.android.sunshine.app.utils.PollingCheck;
+
+public class TestForecastRepository extends AndroidTestCase {
+
+    private static final String LOCATION = "99705";
+    private static final long DAY_IN_MILLIS = 24 * 60 * 60 * 1000;
+
+    private ForecastRepository mRepository;
+    private long mToday;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mRepository = ForecastRepository.get(getContext());
+        mToday = WeatherContract.normalizeDate(System.currentTimeMillis());
+    }
+
+    /*
+        Returns the details of a week from today, with the humidity of each day set to its index.
+     */
+    private ForecastDetail[] createWeek() {
+        MatrixCursor cursor = new MatrixCursor(new String[] {
+                WeatherEntry.COLUMN_DATE,
+                WeatherEntry.COLUMN_WEATHER_ID,
+                WeatherEntry.COLUMN_MAX_TEMP,
+                WeatherEntry.COLUMN_MIN_TEMP,
+                WeatherEntry.COLUMN_HUMIDITY,
+                WeatherEntry.COLUMN_PRESSURE,
+                WeatherEntry.COLUMN_WIND_SPEED,
+                WeatherEntry.COLUMN_DEGREES
+        });
+        for (int i = 0; i < 7; i++) {
+            cursor.addRow(new Object[] {
+                    mToday + i * DAY_IN_MILLIS, 800 + i, 20.5, 8.25, i, 1013.5f, 3.5f, 270f
+            });
+        }
+        return ForecastDetail.fromAllRows(cursor);
+    }
+
+    public void testPublishedDetailsAreLookedUpByDate() {
+        mRepository.publish(LOCATION, mRepository.getVersion(), createWeek());
+
+        ForecastDetail detail = mRepository.getDetail(LOCATION, mToday + 3 * DAY_IN_MILLIS);
+        assertNotNull(detail);
+        assertEquals(803, detail.weatherId);
+        assertEquals(3f, detail.humidity);
+        assertEquals(20.5, detail.high);
+        assertEquals(8.25, detail.low);
+        assertEquals(270f, detail.degrees);
+
+        assertNull(mRepository.getDetail(LOCATION, mToday + 7 * DAY_IN_MILLIS));
+        assertNull(mRepository.getDetail("other location", mToday));
+    }
+
+    public void testRepublishedDayEqualsTheShownOne() {
+        ForecastDetail[] week = createWeek();
+        ForecastDetail[] reloaded = createWeek();
+        assertNotSame(week[2], reloaded[2]);
+        assertEquals("Error: The same day read again should be equal, so it isn't rebound",
+                week[2], reloaded[2]);
+        assertEquals(week[2].hashCode(), reloaded[2].hashCode());
+        assertFalse(week[2].equals(week[3]));
+    }
+
+    public void testDataReadBeforeAChangeIsNotPublished() {
+        int version = mRepository.getVersion();
+        mRepository.invalidate();
+        mRepository.publish(LOCATION, version, createWeek());
+        assertNull(mRepository.getDetail(LOCATION, mToday));
+    }
+
+    public void testProviderChangeDropsSnapshotsAndNotifies() {
+        mRepository.publish(LOCATION, mRepository.getVersion(), createWeek());
+        assertNotNull(mRepository.getDetail(LOCATION, mToday));
+
+        final int[] notifications = new int[1];
+        ForecastRepository.Listener listener = new ForecastRepository.Listener() {
+            @Override
+            public void onForecastChanged() {
+                notifications[0]++;
+            }
+        };
+        mRepository.registerListener(listener);
+        try {
+            getContext().getContentResolver().notifyChange(WeatherEntry.CONTENT_URI, null);
+            new PollingCheck() {
+                @Override
+                protected boolean check() {
+                    return mRepository.getDetail(LOCATION, mToday) == null
+                            && notifications[0] > 0;
+                }
+            }.run();
+        } finally {
+            mRepository.unregisterListener(listener);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.android.sunshine.app;
+
+import android.os.Bundle;
+import android.support.v7.widget.RecyclerView;
+import android.test.AndroidTestCase;
+import android.view.ViewGroup;
+import android.widget.AbsListView;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+public class TestItemChoiceManager extends AndroidTestCase {
+
+    private static final int ITEM_COUNT = 10000;
+
+    /*
+        An adapter over stable ids that is never displayed.
+     */
+    static class IdAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+        long[] mIds;
+
+        IdAdapter(long[] ids) {
+            setHasStableIds(true);
+            mIds = ids;
+        }
+
+        void setIds(long[] ids) {
+            mIds = ids;
+            notifyDataSetChanged();
+        }
+
+        @Override
+        public long getItemId(int position) {
+            return mIds[position];
+        }
+
+        @Override
+        public int getItemCount() {
+            return mIds.length;
+        }
+
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+        }
+    }
+
+    private static long[] createIds(int count) {
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = 1000 + i;
+        }
+        return ids;
+    }
+
+    private static long[] shuffle(long[] ids) {
+        long[] shuffled = Arrays.copyOf(ids, ids.length);
+        Random random = new Random(42);
+        for (int i = shuffled.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            long id = shuffled[i];
+            shuffled[i] = shuffled[j];
+            shuffled[j] = id;
+        }
+        return shuffled;
+    }
+
+    public void testMultipleSelectionFollowsReorderedItems() {
+        IdAdapter adapter = new IdAdapter(createIds(ITEM_COUNT));
+        ItemChoiceManager icm = new ItemChoiceManager(adapter);
+        icm.setChoiceMode(AbsListView.CHOICE_MODE_MULTIPLE);
+        for (int position = 0; position < ITEM_COUNT; position += 7) {
+            icm.setItemChecked(position, true);
+        }
+        int checkedCount = icm.getCheckedItemCount();
+
+        adapter.setIds(shuffle(adapter.mIds));
+
+        assertEquals(checkedCount, icm.getCheckedItemCount());
+        Set<Integer> expected = new HashSet<Integer>();
+        for (int position = 0; position < ITEM_COUNT; position++) {
+            boolean checked = (adapter.mIds[position] - 1000) % 7 == 0;
+            assertEquals("Position " + position, checked, icm.isItemChecked(position));
+            if (checked) {
+                expected.add(position);
+            }
+        }
+        assertEquals(expected, new HashSet<Integer>(icm.getCheckedItemPositions()));
+    }
+
+    public void testSelectionOfRemovedItemsIsDropped() {
+        IdAdapter adapter = new IdAdapter(createIds(ITEM_COUNT));
+        ItemChoiceManager icm = new ItemChoiceManager(adapter);
+        icm.setChoiceMode(AbsListView.CHOICE_MODE_MULTIPLE);
+        icm.setItemChecked(10, true);
+        icm.setItemChecked(ITEM_COUNT - 1, true);
+
+        // Drop the last half
+        adapter.mIds = Arrays.copyOf(adapter.mIds, ITEM_COUNT / 2);
+        adapter.notifyItemRangeRemoved(ITEM_COUNT / 2, ITEM_COUNT - ITEM_COUNT / 2);
+
+        assertEquals(1, icm.getCheckedItemCount());
+        assertEquals(10, icm.getSelectedItemPosition());
+    }
+
+    public void testIndexIsRebuiltOncePerChange() {
+        final int[] idLookups = new int[1];
+        IdAdapter adapter = new IdAdapter(createIds(ITEM_COUNT)) {
+            @Override
+            public long getItemId(int position) {
+                idLookups[0]++;
+                return super.getItemId(position);
+            }
+        };
+        ItemChoiceManager icm = new ItemChoiceManager(adapter);
+        icm.setChoiceMode(AbsListView.CHOICE_MODE_MULTIPLE);
+        icm.setItemChecked(0, true);
+        icm.setItemChecked(ITEM_COUNT - 1, true);
+
+        // A change dispatched as many range operations, as a ForecastDiff may be
+        adapter.mIds = Arrays.copyOf(adapter.mIds, ITEM_COUNT - 10);
+        idLookups[0] = 0;
+        for (int i = 0; i < 10; i++) {
+            adapter.notifyItemRangeRemoved(ITEM_COUNT - 1 - i, 1);
+        }
+        assertEquals("Notifications alone should not rebuild the index", 0, idLookups[0]);
+
+        icm.syncWithAdapter();
+        assertEquals(adapter.getItemCount(), idLookups[0]);
+        assertEquals(1, icm.getCheckedItemCount());
+        assertEquals(adapter.getItemCount(), idLookups[0]);
+    }
+
+    public void testSingleChoiceFollowsItemAnyDistanceAway() {
+        IdAdapter adapter = new IdAdapter(createIds(100));
+        ItemChoiceManager icm = new ItemChoiceManager(adapter);
+        icm.setChoiceMode(AbsListView.CHOICE_MODE_SINGLE);
+        icm.setItemChecked(5, true);
+        icm.setItemChecked(8, true);
+        assertEquals(1, icm.getCheckedItemCount());
+
+        // Insert far more items in front than any search around the old position would cover
+        long[] ids = new long[ITEM_COUNT + 100];
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            ids[i] = -1 - i;
+        }
+        System.arraycopy(adapter.mIds, 0, ids, ITEM_COUNT, 100);
+        adapter.mIds = ids;
+        adapter.notifyItemRangeInserted(0, ITEM_COUNT);
+
+        assertEquals(ITEM_COUNT + 8, icm.getSelectedItemPosition());
+        assertTrue(icm.isItemChecked(ITEM_COUNT + 8));
+        assertFalse(icm.isItemChecked(8));
+    }
+
+    public void testSelectionIsRestoredOnceDataArrives() {
+        IdAdapter adapter = new IdAdapter(createIds(50));
+        ItemChoiceManager icm = new ItemChoiceManager(adapter);
+        icm.setChoiceMode(AbsListView.CHOICE_MODE_MULTIPLE);
+        icm.setItemChecked(3, true);
+        icm.setItemChecked(40, true);
+        Bundle state = new Bundle();
+        icm.onSaveInstanceState(state);
+
+        IdAdapter restoredAdapter = new IdAdapter(new long[0]);
+        ItemChoiceManager restored = new ItemChoiceManager(restoredAdapter);
+        restored.setChoiceMode(AbsListView.CHOICE_MODE_MULTIPLE);
+        restored.onRestoreInstanceState(state);
+        assertEquals(RecyclerView.NO_POSITION, restored.getSelectedItemPosition());
+
+        long[] reversed = new long[50];
+        for (int i = 0; i < 50; i++) {
+            reversed[i] = adapter.mIds[49 - i];
+        }
+        restoredAdapter.setIds(reversed);
+        List<Integer> positions = restored.getCheckedItemPositions();
+        assertEquals(new HashSet<Integer>(Arrays.asList(46, 9)), new HashSet<Integer>(positions));
+    }
+
+    public void testModalSelectionNeedsAnActionMode() {
+        IdAdapter adapter = new IdAdapter(createIds(10));
+        ItemChoiceManager icm = new ItemChoiceManager(adapter);
+        icm.setChoiceMode(AbsListView.CHOICE_MODE_MULTIPLE_MODAL);
+        icm.setItemChecked(2, true);
+        assertFalse(icm.isItemChecked(2));
+        assertEquals(0, icm.getCheckedItemCount());
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.android.sunshine.app;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.preference.PreferenceManager;
+import android.test.AndroidTestCase;
+import android.util.Log;
+
+import com.example.android.sunshine.app.sync.SunshineSyncAdapter;
+import com.example.android.sunshine.app.utils.PollingCheck;
+
+public class TestPreferencesSnapshot extends AndroidTestCase {
+
+    public static final String LOG_TAG = TestPreferencesSnapshot.class.getSimpleName();
+
+    private static final int CALLS = 10000;
+
+    private SharedPreferences mPrefs;
+    private String mUnitsKey;
+    private String mSavedUnits;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mPrefs = PreferenceManager.getDefaultSharedPreferences(getContext());
+        mUnitsKey = getContext().getString(R.string.pref_units_key);
+        mSavedUnits = mPrefs.getString(mUnitsKey, null);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        mPrefs.edit().putString(mUnitsKey, mSavedUnits).commit();
+        super.tearDown();
+    }
+
+    /*
+        How isMetric and usingLocalGraphics read the preferences before the snapshot.
+     */
+    private static boolean isMetricDirect(Context context) {
+        SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(context);
+        return prefs.getString(context.getString(R.string.pref_units_key),
+                context.getString(R.string.pref_units_metric))
+                .equals(context.getString(R.string.pref_units_metric));
+    }
+
+    private static boolean usingLocalGraphicsDirect(Context context) {
+        SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(context);
+        String sunshineArtPack = context.getString(R.string.pref_art_pack_sunshine);
+        return prefs.getString(context.getString(R.string.pref_art_pack_key),
+                sunshineArtPack).equals(sunshineArtPack);
+    }
+
+    public void testMatchesPreferences() {
+        Context context = getContext();
+        assertEquals(isMetricDirect(context), Utility.isMetric(context));
+        assertEquals(usingLocalGraphicsDirect(context), Utility.usingLocalGraphics(context));
+        assertEquals(mPrefs.getString(context.getString(R.string.pref_location_key),
+                context.getString(R.string.pref_location_default)),
+                Utility.getPreferredLocation(context));
+    }
+
+    public void testRefreshedOnChange() {
+        final Context context = getContext();
+        final boolean metric = Utility.isMetric(context);
+        final PreferencesSnapshot before = PreferencesSnapshot.get(context);
+        final boolean[] notifiedWithNewValue = new boolean[1];
+        SharedPreferences.OnSharedPreferenceChangeListener listener =
+                new SharedPreferences.OnSharedPreferenceChangeListener() {
+                    @Override
+                    public void onSharedPreferenceChanged(SharedPreferences sharedPreferences,
+                                                          String key) {
+                        if (key.equals(mUnitsKey)) {
+                            notifiedWithNewValue[0] = Utility.isMetric(context) != metric;
+                        }
+                    }
+                };
+        PreferencesSnapshot.registerListener(context, listener);
+        try {
+            mPrefs.edit().putString(mUnitsKey, context.getString(metric
+                    ? R.string.pref_units_imperial : R.string.pref_units_metric)).commit();
+            new PollingCheck() {
+                @Override
+                protected boolean check() {
+                    return notifiedWithNewValue[0];
+                }
+            }.run();
+            assertEquals("Error: A snapshot should never change", metric, before.metric);
+            assertEquals(!metric, Utility.isMetric(context));
+        } finally {
+            PreferencesSnapshot.unregisterListener(listener);
+        }
+    }
+
+    public void testWriteOffTheMainThreadShowsAfterRefresh() {
+        // Tests run off the main thread, like the sync
+        Context context = getContext();
+        String statusKey = context.getString(R.string.pref_location_status_key);
+        int savedStatus = mPrefs.getInt(statusKey, SunshineSyncAdapter.LOCATION_STATUS_UNKNOWN);
+        PreferencesSnapshot.get(context);
+        try {
+            mPrefs.edit().putInt(statusKey, SunshineSyncAdapter.LOCATION_STATUS_SERVER_DOWN)
+                    .commit();
+            PreferencesSnapshot.refresh(context);
+            assertEquals(SunshineSyncAdapter.LOCATION_STATUS_SERVER_DOWN,
+                    Utility.getLocationStatus(context));
+
+            Utility.resetLocationStatus(context);
+            assertEquals(SunshineSyncAdapter.LOCATION_STATUS_UNKNOWN,
+                    Utility.getLocationStatus(context));
+        } finally {
+            mPrefs.edit().putInt(statusKey, savedStatus).commit();
+            PreferencesSnapshot.refresh(context);
+        }
+    }
+
+    public void testListenerMayUnregisterItself() {
+        final Context context = getContext();
+        final boolean metric = Utility.isMetric(context);
+        final boolean[] called = new boolean[1];
+        PreferencesSnapshot.registerListener(context,
+                new SharedPreferences.OnSharedPreferenceChangeListener() {
+                    @Override
+                    public void onSharedPreferenceChanged(SharedPreferences sharedPreferences,
+                                                          String key) {
+                        PreferencesSnapshot.unregisterListener(this);
+                        called[0] = true;
+                    }
+                });
+        mPrefs.edit().putString(mUnitsKey, context.getString(metric
+                ? R.string.pref_units_imperial : R.string.pref_units_metric)).commit();
+        new PollingCheck() {
+            @Override
+            protected boolean check() {
+                return called[0];
+            }
+        }.run();
+    }
+
+    public void testArtUrls() {
+        PreferencesSnapshot snapshot = PreferencesSnapshot.get(getContext());
+        assertEquals(snapshot.getArtUrl("clear"),
+                Utility.getArtUrlForWeatherCondition(getContext(), 800));
+        assertSame("Error: Art URLs should be formatted once per snapshot",
+                Utility.getArtUrlForWeatherCondition(getContext(), 500),
+                Utility.getArtUrlForWeatherCondition(getContext(), 501));
+        for (String condition : PreferencesSnapshot.ART_CONDITIONS) {
+            assertNotNull(snapshot.getArtUrl(condition));
+        }
+    }
+
+    /*
+        Logs the cost of a preference lookup before and after the snapshot. Compare runs with
+        adb logcat -s TestPreferencesSnapshot.
+     */
+    public void testBenchmark() {
+        Context context = getContext();
+        boolean sink = false;
+
+        long start = System.nanoTime();
+        for (int i = 0; i < CALLS; i++) {
+            sink ^= isMetricDirect(context) ^ usingLocalGraphicsDirect(context);
+        }
+        long directNanos = (System.nanoTime() - start) / (2 * CALLS);
+
+        start = System.nanoTime();
+        for (int i = 0; i < CALLS; i++) {
+            sink ^= Utility.isMetric(context) ^ Utility.usingLocalGraphics(context);
+        }
+        long snapshotNanos = (System.nanoTime() - start) / (2 * CALLS);
+
+        Log.i(LOG_TAG, "SharedPreferences: " + directNanos + " ns/call, snapshot: "
+                + snapshotNanos + " ns/call (" + sink + ")");
+    }
+}
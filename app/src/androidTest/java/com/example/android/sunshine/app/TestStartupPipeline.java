@@ -0,0 +1,82 @@
+package com.example.android.sunshine.app;
+
+import android.os.SystemClock;
+import android.test.AndroidTestCase;
+
+public class TestStartupPipeline extends AndroidTestCase {
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        StartupPipeline.reset();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        StartupPipeline.reset();
+        super.tearDown();
+    }
+
+    public void testMilestonesOnlyCountTheFirstTime() {
+        long before = SystemClock.elapsedRealtime();
+        StartupPipeline.mark(StartupPipeline.ACTIVITY_CREATED);
+        long first = StartupPipeline.getMilestone(StartupPipeline.ACTIVITY_CREATED);
+        assertTrue(first >= before);
+
+        SystemClock.sleep(5);
+        StartupPipeline.mark(StartupPipeline.ACTIVITY_CREATED);
+        assertEquals(first, StartupPipeline.getMilestone(StartupPipeline.ACTIVITY_CREATED));
+        assertEquals(0, StartupPipeline.getMilestone(StartupPipeline.FIRST_FRAME));
+    }
+
+    public void testDumpIsRelativeToProcessStart() {
+        StartupPipeline.mark(StartupPipeline.PROCESS_START);
+        SystemClock.sleep(20);
+        StartupPipeline.mark(StartupPipeline.FIRST_FRAME);
+        StartupPipeline.mark(StartupPipeline.FIRST_DATA_BIND);
+
+        String dump = StartupPipeline.dumpMilestones();
+        assertTrue(dump, dump.startsWith("Startup: processStart=0 firstFrame="));
+        assertTrue(dump, dump.contains(" firstDataBind="));
+        assertFalse(dump, dump.contains("activityCreated"));
+
+        long firstFrame = StartupPipeline.getMilestone(StartupPipeline.FIRST_FRAME)
+                - StartupPipeline.getMilestone(StartupPipeline.PROCESS_START);
+        assertTrue(dump, dump.contains("firstFrame=" + firstFrame + " "));
+        assertTrue(firstFrame >= 20);
+    }
+
+    public void testProcessStartedLongBeforeTheActivityIsAWarmStart() {
+        long now = SystemClock.elapsedRealtime();
+        // Started by a sync an hour before the launch
+        StartupPipeline.markAt(StartupPipeline.PROCESS_START, now - 60 * 60 * 1000);
+        StartupPipeline.markAt(StartupPipeline.ACTIVITY_CREATED, now);
+        StartupPipeline.markAt(StartupPipeline.FIRST_FRAME, now + 300);
+
+        assertTrue(StartupPipeline.isWarmStart());
+        String dump = StartupPipeline.dumpMilestones();
+        assertTrue(dump, dump.startsWith("Warm startup: activityCreated=0 firstFrame=300"));
+        assertFalse(dump, dump.contains("processStart"));
+    }
+
+    public void testProcessStartedByTheLaunchIsAColdStart() {
+        long now = SystemClock.elapsedRealtime();
+        StartupPipeline.markAt(StartupPipeline.PROCESS_START, now);
+        StartupPipeline.markAt(StartupPipeline.ACTIVITY_CREATED, now + 400);
+
+        assertFalse(StartupPipeline.isWarmStart());
+        String dump = StartupPipeline.dumpMilestones();
+        assertTrue(dump, dump.startsWith("Startup: processStart=0 activityCreated=400"));
+    }
+
+    public void testEmptyLoadEndsTheStart() {
+        long now = SystemClock.elapsedRealtime();
+        StartupPipeline.markAt(StartupPipeline.PROCESS_START, now);
+        StartupPipeline.markAt(StartupPipeline.FIRST_FRAME, now + 200);
+        StartupPipeline.markAt(StartupPipeline.FIRST_LOAD_EMPTY, now + 250);
+
+        String dump = StartupPipeline.dumpMilestones();
+        assertTrue(dump, dump.contains(" firstLoadEmpty=250"));
+        assertFalse(dump, dump.contains("firstDataBind"));
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.android.sunshine.app.sync;
+
+import android.content.Intent;
+import android.os.SystemClock;
+import android.test.AndroidTestCase;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class TestPostSyncDispatcher extends AndroidTestCase {
+
+    private static final long CONSUMER_MS = 200;
+
+    private static SyncSnapshot createSnapshot() {
+        return new SyncSnapshot("99705", 1419033600000L, 800, 21.5, 8.25, "Clear",
+                new byte[] {1, 2, 3}, 42L);
+    }
+
+    public void testConsumersRunInParallelOnTheSameSnapshot() {
+        final SyncSnapshot snapshot = createSnapshot();
+        final SyncSnapshot[] received = new SyncSnapshot[3];
+        final CountDownLatch started = new CountDownLatch(received.length);
+        PostSyncDispatcher dispatcher = new PostSyncDispatcher();
+        for (int i = 0; i < received.length; i++) {
+            final int index = i;
+            dispatcher.register("consumer" + i, 5000, new PostSyncDispatcher.Consumer() {
+                @Override
+                public void onDataUpdated(SyncSnapshot snapshot) throws Exception {
+                    received[index] = snapshot;
+                    // Only returns once every consumer has started
+                    started.countDown();
+                    assertTrue(started.await(5, TimeUnit.SECONDS));
+                    Thread.sleep(CONSUMER_MS);
+                }
+            });
+        }
+
+        long start = SystemClock.elapsedRealtime();
+        dispatcher.dispatch(snapshot);
+        long elapsed = SystemClock.elapsedRealtime() - start;
+
+        assertTrue("Consumers should run at once, took " + elapsed + "ms",
+                elapsed < CONSUMER_MS * received.length);
+        for (SyncSnapshot consumed : received) {
+            assertSame(snapshot, consumed);
+        }
+        Map<String, PostSyncDispatcher.ConsumerStats> stats = dispatcher.getStats();
+        assertEquals(received.length, stats.size());
+        for (PostSyncDispatcher.ConsumerStats consumerStats : stats.values()) {
+            assertEquals(1, consumerStats.completedCount);
+            assertTrue(consumerStats.lastLatencyMs >= CONSUMER_MS);
+        }
+    }
+
+    public void testSlowConsumerTimesOutWithoutHoldingTheOthers() {
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        PostSyncDispatcher dispatcher = new PostSyncDispatcher();
+        dispatcher.register("slow", CONSUMER_MS, new PostSyncDispatcher.Consumer() {
+            @Override
+            public void onDataUpdated(SyncSnapshot snapshot) throws Exception {
+                try {
+                    Thread.sleep(60 * 1000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                    throw e;
+                }
+            }
+        });
+        dispatcher.register("failing", 5000, new PostSyncDispatcher.Consumer() {
+            @Override
+            public void onDataUpdated(SyncSnapshot snapshot) {
+                throw new IllegalStateException("Expected by the test");
+            }
+        });
+        dispatcher.register("fast", 5000, new PostSyncDispatcher.Consumer() {
+            @Override
+            public void onDataUpdated(SyncSnapshot snapshot) {
+            }
+        });
+
+        long start = SystemClock.elapsedRealtime();
+        dispatcher.dispatch(createSnapshot());
+        assertTrue(SystemClock.elapsedRealtime() - start < 5000);
+
+        Map<String, PostSyncDispatcher.ConsumerStats> stats = dispatcher.getStats();
+        assertEquals(1, stats.get("slow").timedOutCount);
+        assertEquals(0, stats.get("slow").completedCount);
+        assertEquals(1, stats.get("failing").failedCount);
+        assertEquals(1, stats.get("fast").completedCount);
+        try {
+            assertTrue("A timed out consumer should be interrupted",
+                    interrupted.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            fail();
+        }
+    }
+
+    public void testConsumerIgnoringTheInterruptIsOnlyCountedAsTimedOut() throws Exception {
+        final CountDownLatch returned = new CountDownLatch(1);
+        PostSyncDispatcher dispatcher = new PostSyncDispatcher();
+        dispatcher.register("stubborn", CONSUMER_MS, new PostSyncDispatcher.Consumer() {
+            @Override
+            public void onDataUpdated(SyncSnapshot snapshot) {
+                try {
+                    Thread.sleep(60 * 1000);
+                } catch (InterruptedException e) {
+                    // Swallowed, as a consumer falling back to a default might
+                }
+                returned.countDown();
+            }
+        });
+
+        dispatcher.dispatch(createSnapshot());
+        assertTrue(returned.await(5, TimeUnit.SECONDS));
+        // Let the task record its outcome after the consumer returned
+        SystemClock.sleep(CONSUMER_MS);
+
+        PostSyncDispatcher.ConsumerStats stats = dispatcher.getStats().get("stubborn");
+        assertEquals(1, stats.timedOutCount);
+        assertEquals(0, stats.completedCount);
+        assertEquals(0, stats.failedCount);
+    }
+
+    public void testSnapshotTravelsAsExtrasWithoutTheWearPayload() {
+        SyncSnapshot snapshot = createSnapshot();
+        SyncSnapshot copy = SyncSnapshot.fromExtras(snapshot.putExtras(new Intent()));
+
+        assertEquals(snapshot.locationSetting, copy.locationSetting);
+        assertEquals(snapshot.date, copy.date);
+        assertEquals(snapshot.weatherId, copy.weatherId);
+        assertEquals(snapshot.high, copy.high);
+        assertEquals(snapshot.low, copy.low);
+        assertEquals(snapshot.description, copy.description);
+        assertEquals(0, copy.getWearPayload().length);
+
+        assertNull(SyncSnapshot.fromExtras(new Intent()));
+    }
+
+    public void testWearPayloadCannotBeChangedThroughTheSnapshot() {
+        SyncSnapshot snapshot = createSnapshot();
+        snapshot.getWearPayload()[0] = 9;
+        assertEquals(1, snapshot.getWearPayload()[0]);
+    }
+}
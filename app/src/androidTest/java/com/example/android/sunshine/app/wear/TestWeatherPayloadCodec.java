@@ -0,0 +1,147 @@
+package com.example.android.sunshine.app.wear;
+
+import android.test.AndroidTestCase;
+import android.util.Log;
+
+public class TestWeatherPayloadCodec extends AndroidTestCase {
+
+    public static final String LOG_TAG = TestWeatherPayloadCodec.class.getSimpleName();
+
+    private static final long TEST_TIMESTAMP = 1456790400000L;  // March 1st, 2016
+    private static final int BENCHMARK_ITERATIONS = 10000;
+
+    private static WeatherPayload createTodayPayload() {
+        WeatherPayload payload = new WeatherPayload();
+        payload.setMetric(true);
+        payload.setTimestamp(TEST_TIMESTAMP);
+        payload.setToday(21.37, -4.6, 804);
+        return payload;
+    }
+
+    public void testRoundTripToday() {
+        WeatherPayload payload = createTodayPayload();
+        byte[] data = WeatherPayloadCodec.encode(payload);
+        assertEquals("Error: Unexpected encoded size",
+                WeatherPayloadCodec.encodedSize(0), data.length);
+
+        WeatherPayload decoded = new WeatherPayload();
+        assertTrue("Error: Failed to decode a valid payload",
+                WeatherPayloadCodec.decode(data, decoded));
+        assertTrue(decoded.isMetric());
+        assertEquals(TEST_TIMESTAMP, decoded.getTimestamp());
+        assertEquals(214, decoded.getHigh());
+        assertEquals(-46, decoded.getLow());
+        assertEquals(804, decoded.getWeatherId());
+        assertEquals(0, decoded.getDayCount());
+    }
+
+    public void testRoundTripDays() {
+        WeatherPayload payload = createTodayPayload();
+        payload.setMetric(false);
+        for (int i = 0; i < WeatherPayload.MAX_DAYS + 2; i++) {
+            payload.addDay(10 + i, -10 - i, 800 + i);
+        }
+        assertEquals("Error: Days beyond MAX_DAYS should be dropped",
+                WeatherPayload.MAX_DAYS, payload.getDayCount());
+
+        WeatherPayload decoded = new WeatherPayload();
+        assertTrue(WeatherPayloadCodec.decode(WeatherPayloadCodec.encode(payload), decoded));
+        assertFalse(decoded.isMetric());
+        assertEquals(WeatherPayload.MAX_DAYS, decoded.getDayCount());
+        for (int i = 0; i < WeatherPayload.MAX_DAYS; i++) {
+            assertEquals((10 + i) * 10, decoded.getDayHigh(i));
+            assertEquals((-10 - i) * 10, decoded.getDayLow(i));
+            assertEquals(800 + i, decoded.getDayWeatherId(i));
+        }
+    }
+
+    public void testRejectsMalformedData() {
+        byte[] data = WeatherPayloadCodec.encode(createTodayPayload());
+        WeatherPayload decoded = new WeatherPayload();
+
+        assertFalse(WeatherPayloadCodec.decode(null, decoded));
+        assertFalse(WeatherPayloadCodec.decode(new byte[data.length - 1], decoded));
+        assertFalse("Error: The old text format should be rejected",
+                WeatherPayloadCodec.decode("21° -5° 804".getBytes(), decoded));
+
+        byte[] future = data.clone();
+        future[0] = WeatherPayloadCodec.VERSION + 1;
+        assertFalse("Error: An unknown version should be rejected",
+                WeatherPayloadCodec.decode(future, decoded));
+
+        byte[] truncatedDays = data.clone();
+        truncatedDays[16] = 1;
+        assertFalse("Error: A day count not matching the length should be rejected",
+                WeatherPayloadCodec.decode(truncatedDays, decoded));
+
+        assertEquals("Error: A rejected message should leave the payload untouched",
+                0, decoded.getTimestamp());
+    }
+
+    public void testFingerprintIgnoresTimestamp() {
+        WeatherPayload first = createTodayPayload();
+        WeatherPayload resynced = createTodayPayload();
+        resynced.setTimestamp(TEST_TIMESTAMP + WeatherPayload.STALE_AFTER_MS);
+        assertEquals("Error: A resync of the same forecast should have the same fingerprint",
+                first.fingerprint(), resynced.fingerprint());
+
+        WeatherPayload otherUnits = createTodayPayload();
+        otherUnits.setMetric(false);
+        assertFalse(first.fingerprint() == otherUnits.fingerprint());
+
+        WeatherPayload warmer = createTodayPayload();
+        warmer.setToday(21.5, -4.6, 804);
+        assertFalse(first.fingerprint() == warmer.fingerprint());
+
+        WeatherPayload withDay = createTodayPayload();
+        withDay.addDay(20, 10, 800);
+        assertFalse(first.fingerprint() == withDay.fingerprint());
+    }
+
+    public void testFingerprintTellsApartOffsettingChanges() {
+        // One tenth warmer and 3.1 degrees colder, which a hash with multiplier 31 can't tell
+        // apart from the original
+        WeatherPayload first = createTodayPayload();
+        WeatherPayload offset = createTodayPayload();
+        offset.setToday(21.47, -7.7, 804);
+        assertFalse("Error: Different forecasts should have different fingerprints",
+                first.fingerprint() == offset.fingerprint());
+    }
+
+    public void testDisplayDegrees() {
+        assertEquals(21, WeatherPayload.toDisplayDegrees(214, true));
+        assertEquals(71, WeatherPayload.toDisplayDegrees(214, false));
+        assertEquals(32, WeatherPayload.toDisplayDegrees(0, false));
+        assertEquals(-5, WeatherPayload.toDisplayDegrees(-46, true));
+    }
+
+    /*
+        Compares the binary form with the "high low weatherId" text message it replaces. The
+        numbers are logged rather than asserted since they depend on the device.
+     */
+    public void testBenchmarkAgainstTextFormat() {
+        byte[] text = ("21°" + " " + "-5°" + " " + 804).getBytes();
+        byte[] binary = WeatherPayloadCodec.encode(createTodayPayload());
+
+        long start = System.nanoTime();
+        int checksum = 0;
+        for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+            String[] split = new String(text).split("\\s+");
+            checksum += Integer.parseInt(split[2]);
+        }
+        long textNanos = System.nanoTime() - start;
+
+        WeatherPayload decoded = new WeatherPayload();
+        start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+            WeatherPayloadCodec.decode(binary, decoded);
+            checksum -= decoded.getWeatherId();
+        }
+        long binaryNanos = System.nanoTime() - start;
+        assertEquals(0, checksum);
+
+        Log.i(LOG_TAG, "text: " + text.length + " bytes, "
+                + textNanos / BENCHMARK_ITERATIONS + " ns/decode; binary: " + binary.length
+                + " bytes, " + binaryNanos / BENCHMARK_ITERATIONS + " ns/decode");
+    }
+}
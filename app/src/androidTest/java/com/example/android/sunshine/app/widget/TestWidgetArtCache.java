@@ -0,0 +1,56 @@
+package com.example.android.sunshine.app.widget;
+
+import android.graphics.Bitmap;
+import android.test.AndroidTestCase;
+import android.widget.RemoteViews;
+
+import com.example.android.sunshine.app.R;
+
+public class TestWidgetArtCache extends AndroidTestCase {
+
+    private static final String URL = "http://example.com/art/clear.png";
+
+    @Override
+    protected void tearDown() throws Exception {
+        WidgetArtCache.clear();
+        super.tearDown();
+    }
+
+    public void testImagesAreKeyedByUrlAndSize() {
+        Bitmap small = Bitmap.createBitmap(48, 48, Bitmap.Config.ARGB_8888);
+        WidgetArtCache.put(URL, 48, small);
+
+        assertSame(small, WidgetArtCache.get(URL, 48));
+        assertNull(WidgetArtCache.get(URL, 96));
+        assertNull(WidgetArtCache.get("http://example.com/art/rain.png", 48));
+    }
+
+    public void testCacheIsBoundedInBytes() {
+        // Each image takes a quarter of the cache
+        int side = (int) Math.sqrt(WidgetArtCache.MAX_BYTES / 4 / 4);
+        for (int i = 0; i < 5; i++) {
+            WidgetArtCache.put(URL + i, side,
+                    Bitmap.createBitmap(side, side, Bitmap.Config.ARGB_8888));
+        }
+        assertNull("The least recently used image should be evicted",
+                WidgetArtCache.get(URL + 0, side));
+        for (int i = 1; i < 5; i++) {
+            assertNotNull(WidgetArtCache.get(URL + i, side));
+        }
+    }
+
+    public void testRowPayloadIncludesItsImage() {
+        RemoteViews text = new RemoteViews(getContext().getPackageName(),
+                R.layout.widget_detail_list_item);
+        RemoteViews icon = new RemoteViews(getContext().getPackageName(),
+                R.layout.widget_detail_list_item);
+        icon.setImageViewBitmap(R.id.widget_icon,
+                Bitmap.createBitmap(48, 48, Bitmap.Config.ARGB_8888));
+
+        int textBytes = DetailWidgetRemoteViewsService.getParcelSize(text);
+        int iconBytes = DetailWidgetRemoteViewsService.getParcelSize(icon);
+        assertTrue(textBytes > 0);
+        assertTrue("A row should carry its image's pixels",
+                iconBytes >= textBytes + 48 * 48 * 4);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.android.sunshine.app.widget;
+
+import android.test.AndroidTestCase;
+
+import com.example.android.sunshine.app.R;
+
+public class TestWidgetUpdateTracker extends AndroidTestCase {
+
+    public void testWidgetsShowingTheDataAreSkipped() {
+        WidgetUpdateTracker tracker = new WidgetUpdateTracker();
+        for (int appWidgetId = 1; appWidgetId <= 3; appWidgetId++) {
+            assertEquals(0, tracker.getLayout(appWidgetId));
+            tracker.setLayout(appWidgetId, R.layout.widget_today,
+                    tracker.getOptionsGeneration(appWidgetId));
+            assertFalse(tracker.isCurrent(appWidgetId, "v1"));
+        }
+        tracker.onUpdated(new int[] {1, 2, 3}, "v1");
+        assertEquals(1, tracker.getRenderCount());
+        assertEquals(3, tracker.getUpdateCount());
+
+        for (int appWidgetId = 1; appWidgetId <= 3; appWidgetId++) {
+            assertEquals(R.layout.widget_today, tracker.getLayout(appWidgetId));
+            assertTrue(tracker.isCurrent(appWidgetId, "v1"));
+            assertFalse(tracker.isCurrent(appWidgetId, "v2"));
+        }
+        assertEquals(3, tracker.getSkipCount());
+    }
+
+    public void testNewLayoutOrOptionsMakeAWidgetStale() {
+        WidgetUpdateTracker tracker = new WidgetUpdateTracker();
+        tracker.setLayout(1, R.layout.widget_today, tracker.getOptionsGeneration(1));
+        tracker.setLayout(2, R.layout.widget_today, tracker.getOptionsGeneration(2));
+        tracker.onUpdated(new int[] {1, 2}, "v1");
+
+        // Setting the same layout again changes nothing
+        tracker.setLayout(1, R.layout.widget_today, tracker.getOptionsGeneration(1));
+        assertTrue(tracker.isCurrent(1, "v1"));
+
+        tracker.setLayout(1, R.layout.widget_today_large, tracker.getOptionsGeneration(1));
+        assertFalse(tracker.isCurrent(1, "v1"));
+
+        tracker.onOptionsChanged(2);
+        assertEquals(0, tracker.getLayout(2));
+        assertFalse(tracker.isCurrent(2, "v1"));
+
+        tracker.onDeleted(new int[] {1});
+        assertEquals(0, tracker.getLayout(1));
+    }
+
+    public void testLayoutFromOptionsReadBeforeAResizeIsNotKept() {
+        WidgetUpdateTracker tracker = new WidgetUpdateTracker();
+        int generation = tracker.getOptionsGeneration(1);
+
+        // The widget is resized while its old options are being read
+        tracker.onOptionsChanged(1);
+        assertFalse(tracker.setLayout(1, R.layout.widget_today_small, generation));
+        assertEquals(0, tracker.getLayout(1));
+
+        assertTrue(tracker.setLayout(1, R.layout.widget_today_large,
+                tracker.getOptionsGeneration(1)));
+        assertEquals(R.layout.widget_today_large, tracker.getLayout(1));
+    }
+}
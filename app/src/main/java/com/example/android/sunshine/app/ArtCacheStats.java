@@ -0,0 +1,78 @@
+package com.example.android.sunshine.app;
+
+import com.bumptech.glide.request.RequestListener;
+import com.bumptech.glide.request.target.Target;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts how art pack images reach the screen: straight from Glide's memory cache, or decoded
+ * from the disk cache or the network, or not at all. Every art pack load attaches
+ * {@link #listener()}, so the counts show whether the {@link ArtPrefetchService} keeps the
+ * caches warm. They are logged after each prefetch; compare runs with
+ * {@code adb logcat -s ArtPrefetchService}.
+ *
+ * Glide doesn't tell a disk cache hit from a download, so both count as misses here. With the
+ * disk cache warm, a miss is a decode rather than a fetch.
+ */
+public class ArtCacheStats {
+
+    private static final AtomicInteger sMemoryHits = new AtomicInteger();
+    private static final AtomicInteger sMisses = new AtomicInteger();
+    private static final AtomicInteger sFailures = new AtomicInteger();
+
+    @SuppressWarnings("rawtypes")
+    private static final RequestListener sListener = new RequestListener<Object, Object>() {
+        @Override
+        public boolean onException(Exception e, Object model, Target<Object> target,
+                                   boolean isFirstResource) {
+            sFailures.incrementAndGet();
+            return false;
+        }
+
+        @Override
+        public boolean onResourceReady(Object resource, Object model, Target<Object> target,
+                                       boolean isFromMemoryCache, boolean isFirstResource) {
+            if (isFromMemoryCache) {
+                sMemoryHits.incrementAndGet();
+            } else {
+                sMisses.incrementAndGet();
+            }
+            return false;
+        }
+    };
+
+    private ArtCacheStats() {
+    }
+
+    /**
+     * @return a listener that counts the loads it is attached to, whatever they decode to
+     */
+    @SuppressWarnings("unchecked")
+    public static <R> RequestListener<String, R> listener() {
+        return sListener;
+    }
+
+    public static int getMemoryHits() {
+        return sMemoryHits.get();
+    }
+
+    public static int getMisses() {
+        return sMisses.get();
+    }
+
+    public static int getFailures() {
+        return sFailures.get();
+    }
+
+    static void reset() {
+        sMemoryHits.set(0);
+        sMisses.set(0);
+        sFailures.set(0);
+    }
+
+    public static String dumpStats() {
+        return "memoryHits=" + getMemoryHits() + " misses=" + getMisses()
+                + " failures=" + getFailures();
+    }
+}
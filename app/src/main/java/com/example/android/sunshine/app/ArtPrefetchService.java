@@ -0,0 +1,139 @@
+package com.example.android.sunshine.app;
+
+import android.annotation.SuppressLint;
+import android.app.IntentService;
+import android.content.Context;
+import android.content.Intent;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.os.Build;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.bumptech.glide.BitmapRequestBuilder;
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
+import com.bumptech.glide.request.FutureTarget;
+import com.bumptech.glide.request.target.Target;
+
+import java.io.File;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * IntentService which downloads every image of the current art pack into Glide's disk cache, so
+ * that the list, the detail view, the widgets and the notification don't each stall on the
+ * network the first time they show a condition. A pack has one image per name in
+ * {@link PreferencesSnapshot#ART_CONDITIONS}, whatever the number of days.
+ *
+ * Only the source images are prefetched. Art pack loads use {@link DiskCacheStrategy#ALL} so that
+ * they find them, but the list, the detail view and the widgets still decode their own sizes on
+ * first use, since those depend on the layout. The notification icon, which has a fixed size and
+ * is needed off the main thread, is the only one also decoded into the memory cache.
+ */
+public class ArtPrefetchService extends IntentService {
+    public static final String LOG_TAG = ArtPrefetchService.class.getSimpleName();
+
+    private static final String EXTRA_FORCE = "force";
+
+    /* The art pack whose images were all prefetched by this process */
+    private static volatile String sWarmArtPack;
+
+    public ArtPrefetchService() {
+        super("ArtPrefetchService");
+    }
+
+    /**
+     * Prefetches the images of the current art pack, e.g. after the pack changed.
+     */
+    public static void prefetch(Context context) {
+        context.startService(new Intent(context, ArtPrefetchService.class)
+                .putExtra(EXTRA_FORCE, true));
+    }
+
+    /**
+     * Prefetches the images of the current art pack, unless this process already has, e.g. after
+     * a sync.
+     */
+    public static void prefetchIfNeeded(Context context) {
+        PreferencesSnapshot prefs = PreferencesSnapshot.get(context);
+        if ( !prefs.localGraphics && !prefs.artPack.equals(sWarmArtPack) ) {
+            context.startService(new Intent(context, ArtPrefetchService.class));
+        }
+    }
+
+    /**
+     * @return the request for the notification's large icon; finish it with
+     * {@code into(getLargeIconWidth(context), getLargeIconHeight(context))}
+     */
+    public static BitmapRequestBuilder<String, Bitmap> loadNotificationIcon(Context context,
+                                                                           String artUrl) {
+        return Glide.with(context)
+                .load(artUrl)
+                .asBitmap()
+                .diskCacheStrategy(DiskCacheStrategy.ALL)
+                .listener(ArtCacheStats.<Bitmap>listener())
+                .fitCenter();
+    }
+
+    // On Honeycomb and higher devices, we can retrieve the size of the large icon
+    // Prior to that, we use a fixed size
+    @SuppressLint("InlinedApi")
+    public static int getLargeIconWidth(Context context) {
+        Resources resources = context.getResources();
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB
+                ? resources.getDimensionPixelSize(android.R.dimen.notification_large_icon_width)
+                : resources.getDimensionPixelSize(R.dimen.notification_large_icon_default);
+    }
+
+    @SuppressLint("InlinedApi")
+    public static int getLargeIconHeight(Context context) {
+        Resources resources = context.getResources();
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB
+                ? resources.getDimensionPixelSize(android.R.dimen.notification_large_icon_height)
+                : resources.getDimensionPixelSize(R.dimen.notification_large_icon_default);
+    }
+
+    @Override
+    protected void onHandleIntent(Intent intent) {
+        PreferencesSnapshot prefs = PreferencesSnapshot.get(this);
+        if ( prefs.localGraphics ) {
+            return;
+        }
+        if ( !intent.getBooleanExtra(EXTRA_FORCE, false) && prefs.artPack.equals(sWarmArtPack) ) {
+            return;
+        }
+
+        int largeIconWidth = getLargeIconWidth(this);
+        int largeIconHeight = getLargeIconHeight(this);
+        long start = SystemClock.elapsedRealtime();
+        int prefetched = 0;
+        for (String condition : PreferencesSnapshot.ART_CONDITIONS) {
+            String artUrl = prefs.getArtUrl(condition);
+            FutureTarget<File> source = Glide.with(this)
+                    .load(artUrl)
+                    .downloadOnly(Target.SIZE_ORIGINAL, Target.SIZE_ORIGINAL);
+            FutureTarget<Bitmap> largeIcon = null;
+            try {
+                source.get();
+                largeIcon = loadNotificationIcon(this, artUrl)
+                        .into(largeIconWidth, largeIconHeight);
+                largeIcon.get();
+                prefetched++;
+            } catch (InterruptedException | ExecutionException e) {
+                Log.e(LOG_TAG, "Error prefetching " + artUrl, e);
+            } finally {
+                // Releasing the icon moves it to the memory cache
+                source.clear();
+                if ( largeIcon != null ) {
+                    largeIcon.clear();
+                }
+            }
+        }
+        if ( prefetched == PreferencesSnapshot.ART_CONDITIONS.length ) {
+            sWarmArtPack = prefs.artPack;
+        }
+        Log.d(LOG_TAG, "Prefetched " + prefetched + "/" + PreferencesSnapshot.ART_CONDITIONS.length
+                + " images in " + (SystemClock.elapsedRealtime() - start) + " ms. Art loads: "
+                + ArtCacheStats.dumpStats());
+    }
+}
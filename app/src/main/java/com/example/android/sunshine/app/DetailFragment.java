@@ -38,13 +38,16 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
+import com.bumptech.glide.load.resource.drawable.GlideDrawable;
 import com.example.android.sunshine.app.data.WeatherContract;
 import com.example.android.sunshine.app.data.WeatherContract.WeatherEntry;
 
 /**
  * A placeholder fragment containing a simple view.
  */
-public class DetailFragment extends Fragment implements LoaderManager.LoaderCallbacks<Cursor> {
+public class DetailFragment extends Fragment implements LoaderManager.LoaderCallbacks<Cursor>,
+        ForecastRepository.Listener {
 
     private static final String LOG_TAG = DetailFragment.class.getSimpleName();
     static final String DETAIL_URI = "URI";
@@ -58,6 +61,22 @@ public class DetailFragment extends Fragment implements LoaderManager.LoaderCall
 
     private static final int DETAIL_LOADER = 0;
 
+    // How long to wait for the list alongside to publish its reload before querying the day
+    private static final long PUBLISH_WAIT_MS = 1000;
+
+    /* What the views show, so that publishing the same day again doesn't rebind them */
+    private ForecastDetail mShownDetail;
+    private PreferencesSnapshot mShownPrefs;
+
+    private final Runnable mLoadIfNotPublished = new Runnable() {
+        @Override
+        public void run() {
+            if ( isAdded() && null == getDetailFromRepository() ) {
+                startLoaderIfIdle();
+            }
+        }
+    };
+
     private static final String[] DETAIL_COLUMNS = {
             WeatherEntry.TABLE_NAME + "." + WeatherEntry._ID,
             WeatherEntry.COLUMN_DATE,
@@ -114,6 +133,7 @@ public class DetailFragment extends Fragment implements LoaderManager.LoaderCall
         }
 
         View rootView = inflater.inflate(R.layout.fragment_detail_start, container, false);
+        mShownDetail = null;
         mIconView = (ImageView) rootView.findViewById(R.id.detail_icon);
         mDateView = (TextView) rootView.findViewById(R.id.detail_date_textview);
         mDescriptionView = (TextView) rootView.findViewById(R.id.detail_forecast_textview);
@@ -153,10 +173,67 @@ public class DetailFragment extends Fragment implements LoaderManager.LoaderCall
 
     @Override
     public void onActivityCreated(Bundle savedInstanceState) {
-        getLoaderManager().initLoader(DETAIL_LOADER, null, this);
+        ForecastDetail detail = getDetailFromRepository();
+        if ( null != detail ) {
+            showDetail(detail);
+        } else {
+            getLoaderManager().initLoader(DETAIL_LOADER, null, this);
+        }
         super.onActivityCreated(savedInstanceState);
     }
 
+    @Override
+    public void onStart() {
+        super.onStart();
+        ForecastRepository.get(getActivity()).registerListener(this);
+    }
+
+    @Override
+    public void onStop() {
+        ForecastRepository.get(getActivity()).unregisterListener(this);
+        getView().removeCallbacks(mLoadIfNotPublished);
+        super.onStop();
+    }
+
+    /*
+        The day is usually in the snapshot the list published, which makes showing it a lookup.
+        Otherwise, e.g. when opened from a widget or after the data changed, it is queried.
+     */
+    private ForecastDetail getDetailFromRepository() {
+        if ( null == mUri ) return null;
+        return ForecastRepository.get(getActivity()).getDetail(
+                WeatherContract.WeatherEntry.getLocationSettingFromUri(mUri),
+                WeatherContract.WeatherEntry.getDateFromUri(mUri));
+    }
+
+    @Override
+    public void onForecastChanged() {
+        if ( null == mUri ) return;
+        ForecastDetail detail = getDetailFromRepository();
+        if ( null != detail ) {
+            getView().removeCallbacks(mLoadIfNotPublished);
+            showDetail(detail);
+        } else if ( isAlongsideList() ) {
+            // The data changed, and the list is about to load and publish it again
+            getView().removeCallbacks(mLoadIfNotPublished);
+            getView().postDelayed(mLoadIfNotPublished, PUBLISH_WAIT_MS);
+        } else {
+            startLoaderIfIdle();
+        }
+    }
+
+    private void startLoaderIfIdle() {
+        // A loader already running reloads on its own when the data changes
+        if ( null == getLoaderManager().getLoader(DETAIL_LOADER) ) {
+            getLoaderManager().initLoader(DETAIL_LOADER, null, this);
+        }
+    }
+
+    private boolean isAlongsideList() {
+        Fragment list = getFragmentManager().findFragmentById(R.id.fragment_forecast);
+        return null != list && list.isAdded();
+    }
+
     void onLocationChanged( String newLocation ) {
         // replace the uri, since the location has changed
         Uri uri = mUri;
@@ -164,7 +241,12 @@ public class DetailFragment extends Fragment implements LoaderManager.LoaderCall
             long date = WeatherContract.WeatherEntry.getDateFromUri(uri);
             Uri updatedUri = WeatherContract.WeatherEntry.buildWeatherLocationWithDate(newLocation, date);
             mUri = updatedUri;
-            getLoaderManager().restartLoader(DETAIL_LOADER, null, this);
+            ForecastDetail detail = getDetailFromRepository();
+            if ( null != detail ) {
+                showDetail(detail);
+            } else {
+                getLoaderManager().restartLoader(DETAIL_LOADER, null, this);
+            }
         }
     }
 
@@ -191,14 +273,28 @@ public class DetailFragment extends Fragment implements LoaderManager.LoaderCall
 
     @Override
     public void onLoadFinished(Loader<Cursor> loader, Cursor data) {
-        if (data != null && data.moveToFirst()) {
+        showDetail(data != null && data.moveToFirst() ? ForecastDetail.fromCursor(data) : null);
+    }
+
+    /*
+        Shows detail, or only finishes setting up the screen when there is none.
+     */
+    private void showDetail(ForecastDetail detail) {
+        // A change of units or art pack makes a new snapshot, and needs the same day rebound
+        PreferencesSnapshot prefs = PreferencesSnapshot.get(getActivity());
+        if ( null != detail && detail.equals(mShownDetail) && prefs == mShownPrefs ) {
+            return;
+        }
+        mShownDetail = detail;
+        mShownPrefs = prefs;
+        if (detail != null) {
             ViewParent vp = getView().getParent();
             if ( vp instanceof CardView ) {
                 ((View)vp).setVisibility(View.VISIBLE);
             }
 
-            // Read weather condition ID from cursor
-            int weatherId = data.getInt(COL_WEATHER_CONDITION_ID);
+            // Read weather condition ID
+            int weatherId = detail.weatherId;
 
             if ( Utility.usingLocalGraphics(getActivity()) ) {
                 mIconView.setImageResource(Utility.getArtResourceForWeatherCondition(weatherId));
@@ -206,13 +302,15 @@ public class DetailFragment extends Fragment implements LoaderManager.LoaderCall
                 // Use weather art image
                 Glide.with(this)
                         .load(Utility.getArtUrlForWeatherCondition(getActivity(), weatherId))
+                        .diskCacheStrategy(DiskCacheStrategy.ALL)
+                        .listener(ArtCacheStats.<GlideDrawable>listener())
                         .error(Utility.getArtResourceForWeatherCondition(weatherId))
                         .crossFade()
                         .into(mIconView);
             }
 
-            // Read date from cursor and update views for day of week and date
-            long date = data.getLong(COL_WEATHER_DATE);
+            // Read date and update views for day of week and date
+            long date = detail.date;
             String dateText = Utility.getFullFriendlyDayString(getActivity(),date);
             mDateView.setText(dateText);
 
@@ -227,35 +325,35 @@ public class DetailFragment extends Fragment implements LoaderManager.LoaderCall
             // has text describing it in the same UI component.
             mIconView.setContentDescription(getString(R.string.a11y_forecast_icon, description));
 
-            // Read high temperature from cursor and update view
+            // Read high temperature and update view
             boolean isMetric = Utility.isMetric(getActivity());
 
-            double high = data.getDouble(COL_WEATHER_MAX_TEMP);
+            double high = detail.high;
             String highString = Utility.formatTemperature(getActivity(), high);
             mHighTempView.setText(highString);
             mHighTempView.setContentDescription(getString(R.string.a11y_high_temp, highString));
 
-            // Read low temperature from cursor and update view
-            double low = data.getDouble(COL_WEATHER_MIN_TEMP);
+            // Read low temperature and update view
+            double low = detail.low;
             String lowString = Utility.formatTemperature(getActivity(), low);
             mLowTempView.setText(lowString);
             mLowTempView.setContentDescription(getString(R.string.a11y_low_temp, lowString));
 
-            // Read humidity from cursor and update view
-            float humidity = data.getFloat(COL_WEATHER_HUMIDITY);
+            // Read humidity and update view
+            float humidity = detail.humidity;
             mHumidityView.setText(getActivity().getString(R.string.format_humidity, humidity));
             mHumidityView.setContentDescription(getString(R.string.a11y_humidity, mHumidityView.getText()));
             mHumidityLabelView.setContentDescription(mHumidityView.getContentDescription());
 
-            // Read wind speed and direction from cursor and update view
-            float windSpeedStr = data.getFloat(COL_WEATHER_WIND_SPEED);
-            float windDirStr = data.getFloat(COL_WEATHER_DEGREES);
+            // Read wind speed and direction and update view
+            float windSpeedStr = detail.windSpeed;
+            float windDirStr = detail.degrees;
             mWindView.setText(Utility.getFormattedWind(getActivity(), windSpeedStr, windDirStr));
             mWindView.setContentDescription(getString(R.string.a11y_wind, mWindView.getText()));
             mWindLabelView.setContentDescription(mWindView.getContentDescription());
 
-            // Read pressure from cursor and update view
-            float pressure = data.getFloat(COL_WEATHER_PRESSURE);
+            // Read pressure and update view
+            float pressure = detail.pressure;
             mPressureView.setText(getString(R.string.format_pressure, pressure));
             mPressureView.setContentDescription(getString(R.string.a11y_pressure, mPressureView.getText()));
             mPressureLabelView.setContentDescription(mPressureView.getContentDescription());
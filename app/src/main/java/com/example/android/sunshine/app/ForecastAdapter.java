@@ -20,17 +20,20 @@ import android.database.Cursor;
 import android.os.Build;
 import android.os.Bundle;
 import android.support.v4.view.ViewCompat;
+import android.support.v7.app.AppCompatActivity;
 import android.support.v7.widget.RecyclerView;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.AbsListView;
 import android.widget.Checkable;
 import android.widget.ImageView;
 import android.widget.TextView;
 
 import com.bumptech.glide.Glide;
-import com.example.android.sunshine.app.data.WeatherContract;
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
+import com.bumptech.glide.load.resource.drawable.GlideDrawable;
 
 /**
  * {@link ForecastAdapter} exposes a list of weather forecasts
@@ -45,6 +48,7 @@ public class ForecastAdapter extends RecyclerView.Adapter<ForecastAdapter.Foreca
     private boolean mUseTodayLayout = true;
 
     private Cursor mCursor;
+    private boolean mBound;
     final private Context mContext;
     final private ForecastAdapterOnClickHandler mClickHandler;
     final private View mEmptyView;
@@ -53,7 +57,8 @@ public class ForecastAdapter extends RecyclerView.Adapter<ForecastAdapter.Foreca
     /**
      * Cache of the children views for a forecast list item.
      */
-    public class ForecastAdapterViewHolder extends RecyclerView.ViewHolder implements View.OnClickListener {
+    public class ForecastAdapterViewHolder extends RecyclerView.ViewHolder
+            implements View.OnClickListener, View.OnLongClickListener {
         public final ImageView mIconView;
         public final TextView mDateView;
         public final TextView mDescriptionView;
@@ -68,15 +73,23 @@ public class ForecastAdapter extends RecyclerView.Adapter<ForecastAdapter.Foreca
             mHighTempView = (TextView) view.findViewById(R.id.list_item_high_textview);
             mLowTempView = (TextView) view.findViewById(R.id.list_item_low_textview);
             view.setOnClickListener(this);
+            // Only the modal choice mode uses long clicks, to start selecting
+            if ( mICM.getChoiceMode() == AbsListView.CHOICE_MODE_MULTIPLE_MODAL ) {
+                view.setOnLongClickListener(this);
+            }
         }
 
         @Override
         public void onClick(View v) {
             int adapterPosition = getAdapterPosition();
-            mCursor.moveToPosition(adapterPosition);
-            int dateColumnIndex = mCursor.getColumnIndex(WeatherContract.WeatherEntry.COLUMN_DATE);
-            mClickHandler.onClick(mCursor.getLong(dateColumnIndex), this);
-            mICM.onClick(this);
+            if ( !mICM.onClick(this) ) {
+                mClickHandler.onClick(getRow(adapterPosition).date, this);
+            }
+        }
+
+        @Override
+        public boolean onLongClick(View v) {
+            return mICM.onLongClick(this);
         }
     }
 
@@ -88,6 +101,9 @@ public class ForecastAdapter extends RecyclerView.Adapter<ForecastAdapter.Foreca
         mContext = context;
         mClickHandler = dh;
         mEmptyView = emptyView;
+        // Rows keep their ids across granular updates, which keeps the selection on its day.
+        // This has to be set before the ItemChoiceManager starts observing.
+        setHasStableIds(true);
         mICM = new ItemChoiceManager(this);
         mICM.setChoiceMode(choiceMode);
     }
@@ -124,26 +140,21 @@ public class ForecastAdapter extends RecyclerView.Adapter<ForecastAdapter.Foreca
 
     @Override
     public void onBindViewHolder(ForecastAdapterViewHolder forecastAdapterViewHolder, int position) {
-        mCursor.moveToPosition(position);
-        int weatherId = mCursor.getInt(ForecastFragment.COL_WEATHER_CONDITION_ID);
-        int defaultImage;
-        boolean useLongToday;
-
-        switch (getItemViewType(position)) {
-            case VIEW_TYPE_TODAY:
-                defaultImage = Utility.getArtResourceForWeatherCondition(weatherId);
-                useLongToday = true;
-                break;
-            default:
-                defaultImage = Utility.getIconResourceForWeatherCondition(weatherId);
-                useLongToday = false;
+        if ( !mBound ) {
+            mBound = true;
+            StartupPipeline.mark(StartupPipeline.FIRST_DATA_BIND);
         }
+        ForecastRow row = getRow(position);
+        boolean today = getItemViewType(position) == VIEW_TYPE_TODAY;
+        int defaultImage = today ? row.artResource : row.iconResource;
 
-        if ( Utility.usingLocalGraphics(mContext) ) {
+        if ( row.artUrl == null ) {
             forecastAdapterViewHolder.mIconView.setImageResource(defaultImage);
         } else {
             Glide.with(mContext)
-                    .load(Utility.getArtUrlForWeatherCondition(mContext, weatherId))
+                    .load(row.artUrl)
+                    .diskCacheStrategy(DiskCacheStrategy.ALL)
+                    .listener(ArtCacheStats.<GlideDrawable>listener())
                     .error(defaultImage)
                     .crossFade()
                     .into(forecastAdapterViewHolder.mIconView);
@@ -153,38 +164,36 @@ public class ForecastAdapter extends RecyclerView.Adapter<ForecastAdapter.Foreca
         // the animator can use this to re-find the original view
         ViewCompat.setTransitionName(forecastAdapterViewHolder.mIconView, "iconView" + position);
 
-        // Read date from cursor
-        long dateInMillis = mCursor.getLong(ForecastFragment.COL_WEATHER_DATE);
-
-        // Find TextView and set formatted date on it
-        forecastAdapterViewHolder.mDateView.setText(Utility.getFriendlyDayString(mContext, dateInMillis, useLongToday));
-
-        // Read weather forecast from cursor
-        String description = Utility.getStringForWeatherCondition(mContext, weatherId);
+        forecastAdapterViewHolder.mDateView.setText(today ? row.longDay : row.day);
 
-        // Find TextView and set weather forecast on it
-        forecastAdapterViewHolder.mDescriptionView.setText(description);
-        forecastAdapterViewHolder.mDescriptionView.setContentDescription(mContext.getString(R.string.a11y_forecast, description));
+        forecastAdapterViewHolder.mDescriptionView.setText(row.description);
+        forecastAdapterViewHolder.mDescriptionView.setContentDescription(row.descriptionA11y);
 
         // For accessibility, we don't want a content description for the icon field
         // because the information is repeated in the description view and the icon
         // is not individually selectable
 
-        // Read high temperature from cursor
-        double high = mCursor.getDouble(ForecastFragment.COL_WEATHER_MAX_TEMP);
-        String highString = Utility.formatTemperature(mContext, high);
-        forecastAdapterViewHolder.mHighTempView.setText(highString);
-        forecastAdapterViewHolder.mHighTempView.setContentDescription(mContext.getString(R.string.a11y_high_temp, highString));
+        forecastAdapterViewHolder.mHighTempView.setText(row.high);
+        forecastAdapterViewHolder.mHighTempView.setContentDescription(row.highA11y);
 
-        // Read low temperature from cursor
-        double low = mCursor.getDouble(ForecastFragment.COL_WEATHER_MIN_TEMP);
-        String lowString = Utility.formatTemperature(mContext, low);
-        forecastAdapterViewHolder.mLowTempView.setText(lowString);
-        forecastAdapterViewHolder.mLowTempView.setContentDescription(mContext.getString(R.string.a11y_low_temp, lowString));
+        forecastAdapterViewHolder.mLowTempView.setText(row.low);
+        forecastAdapterViewHolder.mLowTempView.setContentDescription(row.lowA11y);
 
         mICM.onBindViewHolder(forecastAdapterViewHolder, position);
     }
 
+    /*
+        Rows normally come formatted from the ForecastLoader. Any other cursor is formatted
+        here, on the spot.
+     */
+    private ForecastRow getRow(int position) {
+        if ( mCursor instanceof ForecastLoader.ForecastCursor ) {
+            return ((ForecastLoader.ForecastCursor) mCursor).getRow(position);
+        }
+        mCursor.moveToPosition(position);
+        return ForecastRow.fromCursor(mContext, mCursor);
+    }
+
     public void onRestoreInstanceState(Bundle savedInstanceState) {
         mICM.onRestoreInstanceState(savedInstanceState);
     }
@@ -201,6 +210,15 @@ public class ForecastAdapter extends RecyclerView.Adapter<ForecastAdapter.Foreca
         return mICM.getSelectedItemPosition();
     }
 
+    /**
+     * Sets what CHOICE_MODE_MULTIPLE_MODAL selections do, in an action mode started from
+     * {@code activity}.
+     */
+    public void setMultiChoiceModeListener(AppCompatActivity activity,
+                                           ItemChoiceManager.MultiChoiceModeListener listener) {
+        mICM.setMultiChoiceModeListener(activity, listener);
+    }
+
     @Override
     public int getItemViewType(int position) {
         return (position == 0 && mUseTodayLayout) ? VIEW_TYPE_TODAY : VIEW_TYPE_FUTURE_DAY;
@@ -212,9 +230,48 @@ public class ForecastAdapter extends RecyclerView.Adapter<ForecastAdapter.Foreca
         return mCursor.getCount();
     }
 
+    /*
+        The id of a row is its date: the row ids in the database change on every sync, while the
+        date of a day doesn't. The ItemChoiceManager may ask about positions that no longer
+        exist, which have no id.
+     */
+    @Override
+    public long getItemId(int position) {
+        if ( position < 0 || position >= getItemCount() ) return RecyclerView.NO_ID;
+        if ( mCursor instanceof ForecastLoader.ForecastCursor ) {
+            return ((ForecastLoader.ForecastCursor) mCursor).getRow(position).date;
+        }
+        mCursor.moveToPosition(position);
+        return mCursor.getLong(ForecastFragment.COL_WEATHER_DATE);
+    }
+
+    /**
+     * Shows {@code newCursor}. When it comes from the {@link ForecastLoader} with a diff from the
+     * rows shown now, only the rows that changed are notified; otherwise the whole list is.
+     */
     public void swapCursor(Cursor newCursor) {
+        Cursor oldCursor = mCursor;
+        long oldFirstDate = getItemCount() > 0 ? getItemId(0) : RecyclerView.NO_ID;
         mCursor = newCursor;
-        notifyDataSetChanged();
+
+        ForecastDiff diff = newCursor instanceof ForecastLoader.ForecastCursor
+                ? ((ForecastLoader.ForecastCursor) newCursor).getDiff() : null;
+        if ( diff != null && oldCursor instanceof ForecastLoader.ForecastCursor
+                && diff.appliesTo(((ForecastLoader.ForecastCursor) oldCursor).getRows()) ) {
+            diff.dispatchTo(this);
+            // When the first day changes, the row that is now first takes the today layout
+            if ( mUseTodayLayout && getItemCount() > 0 && getItemId(0) != oldFirstDate ) {
+                notifyItemChanged(0);
+            }
+        } else {
+            notifyDataSetChanged();
+        }
+        // Once for the whole change, however many notifications the diff took
+        mICM.syncWithAdapter();
+        if ( newCursor != null && getItemCount() == 0 ) {
+            // Nothing to bind, so the start ends here
+            StartupPipeline.mark(StartupPipeline.FIRST_LOAD_EMPTY);
+        }
         mEmptyView.setVisibility(getItemCount() == 0 ? View.VISIBLE : View.GONE);
     }
 
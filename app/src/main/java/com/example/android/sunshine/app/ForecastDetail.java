@@ -0,0 +1,108 @@
+package com.example.android.sunshine.app;
+
+import android.database.Cursor;
+
+import com.example.android.sunshine.app.data.WeatherContract.WeatherEntry;
+
+/**
+ * Everything the detail view shows for a day, as stored. Details are formatted when shown, so
+ * that a change of units doesn't leave stale strings in the {@link ForecastRepository}.
+ */
+public class ForecastDetail {
+
+    public final long date;
+    public final int weatherId;
+    public final double high;
+    public final double low;
+    public final float humidity;
+    public final float pressure;
+    public final float windSpeed;
+    public final float degrees;
+
+    /*
+        Column indices of a cursor, looked up by name so that any projection with the weather
+        columns will do.
+     */
+    private static class Columns {
+        final int date;
+        final int weatherId;
+        final int high;
+        final int low;
+        final int humidity;
+        final int pressure;
+        final int windSpeed;
+        final int degrees;
+
+        Columns(Cursor cursor) {
+            date = cursor.getColumnIndexOrThrow(WeatherEntry.COLUMN_DATE);
+            weatherId = cursor.getColumnIndexOrThrow(WeatherEntry.COLUMN_WEATHER_ID);
+            high = cursor.getColumnIndexOrThrow(WeatherEntry.COLUMN_MAX_TEMP);
+            low = cursor.getColumnIndexOrThrow(WeatherEntry.COLUMN_MIN_TEMP);
+            humidity = cursor.getColumnIndexOrThrow(WeatherEntry.COLUMN_HUMIDITY);
+            pressure = cursor.getColumnIndexOrThrow(WeatherEntry.COLUMN_PRESSURE);
+            windSpeed = cursor.getColumnIndexOrThrow(WeatherEntry.COLUMN_WIND_SPEED);
+            degrees = cursor.getColumnIndexOrThrow(WeatherEntry.COLUMN_DEGREES);
+        }
+    }
+
+    private ForecastDetail(Cursor cursor, Columns columns) {
+        date = cursor.getLong(columns.date);
+        weatherId = cursor.getInt(columns.weatherId);
+        high = cursor.getDouble(columns.high);
+        low = cursor.getDouble(columns.low);
+        humidity = cursor.getFloat(columns.humidity);
+        pressure = cursor.getFloat(columns.pressure);
+        windSpeed = cursor.getFloat(columns.windSpeed);
+        degrees = cursor.getFloat(columns.degrees);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ForecastDetail)) return false;
+        ForecastDetail other = (ForecastDetail) o;
+        return date == other.date
+                && weatherId == other.weatherId
+                && Double.compare(high, other.high) == 0
+                && Double.compare(low, other.low) == 0
+                && Float.compare(humidity, other.humidity) == 0
+                && Float.compare(pressure, other.pressure) == 0
+                && Float.compare(windSpeed, other.windSpeed) == 0
+                && Float.compare(degrees, other.degrees) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = (int) (date ^ (date >>> 32));
+        result = 31 * result + weatherId;
+        long bits = Double.doubleToLongBits(high);
+        result = 31 * result + (int) (bits ^ (bits >>> 32));
+        bits = Double.doubleToLongBits(low);
+        result = 31 * result + (int) (bits ^ (bits >>> 32));
+        result = 31 * result + Float.floatToIntBits(humidity);
+        result = 31 * result + Float.floatToIntBits(pressure);
+        result = 31 * result + Float.floatToIntBits(windSpeed);
+        result = 31 * result + Float.floatToIntBits(degrees);
+        return result;
+    }
+
+    /**
+     * Builds the detail for the current position of {@code cursor}.
+     */
+    public static ForecastDetail fromCursor(Cursor cursor) {
+        return new ForecastDetail(cursor, new Columns(cursor));
+    }
+
+    /**
+     * Builds a detail for every position of {@code cursor}.
+     */
+    public static ForecastDetail[] fromAllRows(Cursor cursor) {
+        Columns columns = new Columns(cursor);
+        ForecastDetail[] details = new ForecastDetail[cursor.getCount()];
+        for (int i = 0; i < details.length; i++) {
+            cursor.moveToPosition(i);
+            details[i] = new ForecastDetail(cursor, columns);
+        }
+        return details;
+    }
+}
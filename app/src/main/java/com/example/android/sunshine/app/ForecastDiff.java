@@ -0,0 +1,126 @@
+package com.example.android.sunshine.app;
+
+import android.support.v7.widget.RecyclerView;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The smallest set of insertions, removals and changes that turns one list of forecast rows into
+ * another, computed off the main thread by the {@link ForecastLoader}. Rows are matched by date,
+ * which stays the same across syncs while the row ids do not. Both lists are sorted by date, so
+ * a single merge pass finds every difference.
+ *
+ * Dispatching the diff to the adapter, instead of notifying that everything changed, only rebinds
+ * the rows that actually changed and lets the RecyclerView animate the rest.
+ */
+public class ForecastDiff {
+
+    static final int INSERT = 0;
+    static final int REMOVE = 1;
+    static final int CHANGE = 2;
+
+    /**
+     * A range of adapter positions, as of the moment the operation is dispatched.
+     */
+    static class Operation {
+        final int type;
+        final int position;
+        int count;
+
+        Operation(int type, int position) {
+            this.type = type;
+            this.position = position;
+            count = 1;
+        }
+    }
+
+    private final ForecastRow[] mOldRows;
+    private final List<Operation> mOperations = new ArrayList<Operation>();
+
+    private ForecastDiff(ForecastRow[] oldRows) {
+        mOldRows = oldRows;
+    }
+
+    /**
+     * @param oldRows rows sorted by date, as the adapter shows them
+     * @param newRows rows sorted by date, to be shown instead
+     */
+    public static ForecastDiff compute(ForecastRow[] oldRows, ForecastRow[] newRows) {
+        ForecastDiff diff = new ForecastDiff(oldRows);
+        int oldIndex = 0;
+        int newIndex = 0;
+        int position = 0;
+        while (oldIndex < oldRows.length || newIndex < newRows.length) {
+            if (newIndex == newRows.length || (oldIndex < oldRows.length
+                    && oldRows[oldIndex].date < newRows[newIndex].date)) {
+                diff.add(REMOVE, position);
+                oldIndex++;
+            } else if (oldIndex == oldRows.length
+                    || newRows[newIndex].date < oldRows[oldIndex].date) {
+                diff.add(INSERT, position);
+                newIndex++;
+                position++;
+            } else {
+                if (!oldRows[oldIndex].hasSameContent(newRows[newIndex])) {
+                    diff.add(CHANGE, position);
+                }
+                oldIndex++;
+                newIndex++;
+                position++;
+            }
+        }
+        return diff;
+    }
+
+    /*
+        Adds an operation on a single position, extending the last operation when this one
+        continues it.
+     */
+    private void add(int type, int position) {
+        if (!mOperations.isEmpty()) {
+            Operation last = mOperations.get(mOperations.size() - 1);
+            if (last.type == type) {
+                // Removed rows all leave from the same position; other rows follow each other
+                int next = type == REMOVE ? last.position : last.position + last.count;
+                if (position == next) {
+                    last.count++;
+                    return;
+                }
+            }
+        }
+        mOperations.add(new Operation(type, position));
+    }
+
+    /**
+     * @return whether this diff starts from {@code rows}, i.e. can be applied to an adapter
+     * showing them
+     */
+    public boolean appliesTo(ForecastRow[] rows) {
+        return rows == mOldRows;
+    }
+
+    List<Operation> getOperations() {
+        return mOperations;
+    }
+
+    /**
+     * Notifies {@code adapter} of every operation, in order. The adapter must already return the
+     * new rows.
+     */
+    public void dispatchTo(RecyclerView.Adapter adapter) {
+        for (Operation operation : mOperations) {
+            switch (operation.type) {
+                case INSERT:
+                    adapter.notifyItemRangeInserted(operation.position, operation.count);
+                    break;
+                case REMOVE:
+                    adapter.notifyItemRangeRemoved(operation.position, operation.count);
+                    break;
+                case CHANGE:
+                    adapter.notifyItemRangeChanged(operation.position, operation.count);
+                    break;
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.android.sunshine.app;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.CursorWrapper;
+import android.net.Uri;
+import android.support.v4.content.CursorLoader;
+
+import com.example.android.sunshine.app.data.WeatherContract;
+
+/**
+ * A {@link CursorLoader} for the forecast list that also formats every row on its background
+ * thread. The cursor it delivers is a {@link ForecastCursor}, which carries the
+ * {@link ForecastRow rows} along with the data they were built from, and a {@link ForecastDiff}
+ * from the rows the loader delivered before. Each load also publishes the details of every day
+ * to the {@link ForecastRepository}, for the detail view.
+ *
+ * The rows depend on preferences such as the units and the art pack. Changing those notifies
+ * the weather URI, which reloads the cursor and with it the rows.
+ */
+public class ForecastLoader extends CursorLoader {
+
+    /**
+     * A cursor together with a row for each of its positions.
+     */
+    public static class ForecastCursor extends CursorWrapper {
+
+        private final ForecastRow[] mRows;
+        private final ForecastDiff mDiff;
+
+        ForecastCursor(Cursor cursor, ForecastRow[] rows, ForecastDiff diff) {
+            super(cursor);
+            mRows = rows;
+            mDiff = diff;
+        }
+
+        public ForecastRow getRow(int position) {
+            return mRows[position];
+        }
+
+        ForecastRow[] getRows() {
+            return mRows;
+        }
+
+        /**
+         * @return the changes from the rows delivered before this cursor, or null for the first
+         * cursor
+         */
+        public ForecastDiff getDiff() {
+            return mDiff;
+        }
+    }
+
+    /* The rows of the last cursor loaded, which the next diff starts from */
+    private volatile ForecastRow[] mLastRows;
+
+    public ForecastLoader(Context context, Uri uri, String[] projection, String selection,
+                          String[] selectionArgs, String sortOrder) {
+        super(context, uri, projection, selection, selectionArgs, sortOrder);
+    }
+
+    @Override
+    public Cursor loadInBackground() {
+        ForecastRepository repository = ForecastRepository.get(getContext());
+        int version = repository.getVersion();
+        Cursor cursor = super.loadInBackground();
+        if (cursor == null) {
+            return null;
+        }
+        repository.publish(WeatherContract.WeatherEntry.getLocationSettingFromUri(getUri()),
+                version, ForecastDetail.fromAllRows(cursor));
+        ForecastRow[] rows = ForecastRow.fromAllRows(getContext(), cursor);
+        cursor.moveToPosition(-1);
+        ForecastRow[] lastRows = mLastRows;
+        ForecastDiff diff = lastRows == null ? null : ForecastDiff.compute(lastRows, rows);
+        mLastRows = rows;
+        return new ForecastCursor(cursor, rows, diff);
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.android.sunshine.app;
+
+import android.content.Context;
+import android.database.ContentObserver;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.example.android.sunshine.app.data.WeatherContract;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The forecast of every location the list has loaded, kept in memory for the whole process. The
+ * {@link ForecastLoader} publishes a snapshot each time it loads, and the {@link DetailFragment}
+ * looks its day up in it, instead of querying again for a row the list already read.
+ *
+ * Any change to the weather data drops every snapshot, so a lookup never returns data older than
+ * the provider's. A load that started before the change is not published either; the list loads
+ * again after the change and publishes then.
+ */
+public class ForecastRepository {
+
+    /**
+     * Called on the main thread when a snapshot is published or dropped.
+     */
+    public interface Listener {
+        void onForecastChanged();
+    }
+
+    private static ForecastRepository sInstance;
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final List<Listener> mListeners = new CopyOnWriteArrayList<Listener>();
+
+    /* Guarded by this */
+    private final Map<String, Map<Long, ForecastDetail>> mSnapshots =
+            new HashMap<String, Map<Long, ForecastDetail>>();
+    /* Guarded by this; counts the changes to the weather data */
+    private int mVersion;
+
+    private final Runnable mNotifyListeners = new Runnable() {
+        @Override
+        public void run() {
+            for (Listener listener : mListeners) {
+                listener.onForecastChanged();
+            }
+        }
+    };
+
+    private ForecastRepository(Context context) {
+        context.getContentResolver().registerContentObserver(
+                WeatherContract.WeatherEntry.CONTENT_URI, true, new ContentObserver(mHandler) {
+                    @Override
+                    public void onChange(boolean selfChange) {
+                        invalidate();
+                    }
+                });
+    }
+
+    public static synchronized ForecastRepository get(Context context) {
+        if (sInstance == null) {
+            sInstance = new ForecastRepository(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    /**
+     * @return the version to {@link #publish} data read from now on with
+     */
+    public synchronized int getVersion() {
+        return mVersion;
+    }
+
+    /**
+     * Replaces the snapshot of {@code location}, unless the weather data changed since
+     * {@code version} was read. May be called from any thread.
+     */
+    public void publish(String location, int version, ForecastDetail[] details) {
+        Map<Long, ForecastDetail> snapshot = new HashMap<Long, ForecastDetail>(details.length * 2);
+        for (ForecastDetail detail : details) {
+            snapshot.put(detail.date, detail);
+        }
+        synchronized (this) {
+            if (version != mVersion) {
+                return;
+            }
+            mSnapshots.put(location, snapshot);
+        }
+        mHandler.post(mNotifyListeners);
+    }
+
+    /**
+     * @param date a normalized date, as in the weather URIs
+     * @return the detail of {@code date} at {@code location}, or null if no current snapshot
+     * has it
+     */
+    public synchronized ForecastDetail getDetail(String location, long date) {
+        Map<Long, ForecastDetail> snapshot = mSnapshots.get(location);
+        return snapshot == null ? null : snapshot.get(date);
+    }
+
+    void invalidate() {
+        synchronized (this) {
+            mVersion++;
+            mSnapshots.clear();
+        }
+        mHandler.post(mNotifyListeners);
+    }
+
+    public void registerListener(Listener listener) {
+        if (!mListeners.contains(listener)) {
+            mListeners.add(listener);
+        }
+    }
+
+    public void unregisterListener(Listener listener) {
+        mListeners.remove(listener);
+    }
+}
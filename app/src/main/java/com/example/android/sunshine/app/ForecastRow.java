@@ -0,0 +1,92 @@
+package com.example.android.sunshine.app;
+
+import android.content.Context;
+import android.database.Cursor;
+
+/**
+ * Everything a row of the forecast list displays, formatted ahead of time. Rows are built off
+ * the main thread by the {@link ForecastLoader}, so that binding a row only sets fields, instead
+ * of reading preferences, formatting strings and looking up resources on every bind.
+ */
+public class ForecastRow {
+
+    public final long id;
+    public final long date;
+    public final int weatherId;
+
+    /** The day, e.g. "Tomorrow" or "Wednesday" */
+    public final String day;
+    /** The day in the form used by the today layout, e.g. "Today, June 24" */
+    public final String longDay;
+
+    public final String description;
+    public final String descriptionA11y;
+    public final String high;
+    public final String highA11y;
+    public final String low;
+    public final String lowA11y;
+
+    /** Image used by the today layout, and while the art pack image loads */
+    public final int artResource;
+    /** Image used by the other rows, and while the art pack image loads */
+    public final int iconResource;
+    /** Image from the art pack, or null to use the resources */
+    public final String artUrl;
+
+    private ForecastRow(Context context, Cursor cursor) {
+        id = cursor.getLong(ForecastFragment.COL_WEATHER_ID);
+        date = cursor.getLong(ForecastFragment.COL_WEATHER_DATE);
+        weatherId = cursor.getInt(ForecastFragment.COL_WEATHER_CONDITION_ID);
+
+        day = Utility.getFriendlyDayString(context, date, false);
+        longDay = Utility.getFriendlyDayString(context, date, true);
+
+        description = Utility.getStringForWeatherCondition(context, weatherId);
+        descriptionA11y = context.getString(R.string.a11y_forecast, description);
+        high = Utility.formatTemperature(context,
+                cursor.getDouble(ForecastFragment.COL_WEATHER_MAX_TEMP));
+        highA11y = context.getString(R.string.a11y_high_temp, high);
+        low = Utility.formatTemperature(context,
+                cursor.getDouble(ForecastFragment.COL_WEATHER_MIN_TEMP));
+        lowA11y = context.getString(R.string.a11y_low_temp, low);
+
+        artResource = Utility.getArtResourceForWeatherCondition(weatherId);
+        iconResource = Utility.getIconResourceForWeatherCondition(weatherId);
+        artUrl = Utility.usingLocalGraphics(context)
+                ? null : Utility.getArtUrlForWeatherCondition(context, weatherId);
+    }
+
+    /**
+     * @return whether {@code other} displays exactly like this row
+     */
+    public boolean hasSameContent(ForecastRow other) {
+        return date == other.date
+                && weatherId == other.weatherId
+                && day.equals(other.day)
+                && longDay.equals(other.longDay)
+                && high.equals(other.high)
+                && low.equals(other.low)
+                && (artUrl == null ? other.artUrl == null : artUrl.equals(other.artUrl));
+    }
+
+    /**
+     * Builds the row for the current position of {@code cursor}, which must have the columns of
+     * {@link ForecastFragment}'s projection.
+     */
+    public static ForecastRow fromCursor(Context context, Cursor cursor) {
+        return new ForecastRow(context, cursor);
+    }
+
+    /**
+     * Builds a row for every position of {@code cursor}, which must have the columns of
+     * {@link ForecastFragment}'s projection.
+     */
+    public static ForecastRow[] fromAllRows(Context context, Cursor cursor) {
+        ForecastRow[] rows = new ForecastRow[cursor.getCount()];
+        for (int i = 0; i < rows.length; i++) {
+            cursor.moveToPosition(i);
+            rows[i] = new ForecastRow(context, cursor);
+        }
+        return rows;
+    }
+}
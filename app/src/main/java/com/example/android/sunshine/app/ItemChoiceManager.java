@@ -15,21 +15,32 @@
  */
 package com.example.android.sunshine.app;
 
-import android.os.Build;
 import android.os.Bundle;
-import android.os.Parcel;
-import android.os.Parcelable;
-import android.support.v4.util.LongSparseArray;
 import android.support.v4.view.ViewCompat;
+import android.support.v7.app.AppCompatActivity;
+import android.support.v7.view.ActionMode;
 import android.support.v7.widget.RecyclerView;
 import android.util.Log;
-import android.util.SparseBooleanArray;
+import android.view.Menu;
+import android.view.MenuItem;
 import android.widget.AbsListView;
 import android.widget.Checkable;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 /**
- * The ItemChoiceManager class keeps track of which positions have been selected.  Note that it
- * doesn't take advantage of new adapter features to track changes in the underlying data.
+ * The ItemChoiceManager class keeps track of which items have been selected.  Selections are
+ * keyed by the adapter's stable ids, or by position when it has none, so a selected item stays
+ * selected wherever it moves.  Whether a position is checked is a single hash lookup; an index
+ * from id to position answers the other way round. The index is rebuilt in one pass over the
+ * adapter when it is next needed after the data changed, however many notifications the change
+ * took, and the selections whose items are gone are dropped then.
  */
 public class ItemChoiceManager {
     private final String LOG_TAG = MainActivity.class.getSimpleName();
@@ -40,9 +51,60 @@ public class ItemChoiceManager {
     private RecyclerView.AdapterDataObserver mAdapterDataObserver = new RecyclerView.AdapterDataObserver() {
         @Override
         public void onChanged() {
-            super.onChanged();
-            if (mAdapter != null && mAdapter.hasStableIds())
-                confirmCheckedPositionsById(mAdapter.getItemCount());
+            onDataChanged();
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            onDataChanged();
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            onDataChanged();
+        }
+
+        @Override
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            onDataChanged();
+        }
+    };
+
+    /**
+     * Callbacks of the action mode started for CHOICE_MODE_MULTIPLE_MODAL, like
+     * {@link AbsListView.MultiChoiceModeListener} for the support action mode.
+     */
+    public interface MultiChoiceModeListener extends ActionMode.Callback {
+        void onItemCheckedStateChanged(ActionMode mode, int position, long id, boolean checked);
+    }
+
+    private AppCompatActivity mActivity;
+    private MultiChoiceModeListener mMultiChoiceModeListener;
+    private ActionMode mActionMode;
+
+    private ActionMode.Callback mActionModeCallback = new ActionMode.Callback() {
+        @Override
+        public boolean onCreateActionMode(ActionMode mode, Menu menu) {
+            return mMultiChoiceModeListener.onCreateActionMode(mode, menu);
+        }
+
+        @Override
+        public boolean onPrepareActionMode(ActionMode mode, Menu menu) {
+            return mMultiChoiceModeListener.onPrepareActionMode(mode, menu);
+        }
+
+        @Override
+        public boolean onActionItemClicked(ActionMode mode, MenuItem item) {
+            return mMultiChoiceModeListener.onActionItemClicked(mode, item);
+        }
+
+        @Override
+        public void onDestroyActionMode(ActionMode mode) {
+            mMultiChoiceModeListener.onDestroyActionMode(mode);
+            mActionMode = null;
+            // Leaving the mode leaves nothing selected
+            notifyCheckedItemsChanged();
+            mCheckedKeys.clear();
         }
     };
 
@@ -53,139 +115,270 @@ public class ItemChoiceManager {
 
     public ItemChoiceManager(RecyclerView.Adapter adapter) {
         mAdapter = adapter;
+        mAdapter.registerAdapterDataObserver(mAdapterDataObserver);
     }
 
     /**
-     * How many positions in either direction we will search to try to
-     * find a checked item with a stable ID that moved position across
-     * a data set change. If the item isn't found it will be unselected.
+     * Keys of the checked items: their stable ids, or their positions
      */
-    private static final int CHECK_POSITION_SEARCH_DISTANCE = 20;
+    final Set<Long> mCheckedKeys = new HashSet<Long>();
 
     /**
-     * Running state of which positions are currently checked
+     * Position of every key in the adapter, valid while mIndexValid is
      */
-    SparseBooleanArray mCheckStates = new SparseBooleanArray();
+    final Map<Long, Integer> mPositions = new HashMap<Long, Integer>();
+    private boolean mIndexValid;
+    /* Whether the data changed since the checked keys were last matched against the index */
+    private boolean mDataChanged;
 
     /**
-     * Running state of which IDs are currently checked.
-     * If there is a value for a given key, the checked state for that ID is true
-     * and the value holds the last known position in the adapter for that id.
+     * Handles a click on {@code vh}, checking or unchecking its item as the choice mode says.
+     *
+     * @return whether the click only changed the selection, as clicks do while the
+     * CHOICE_MODE_MULTIPLE_MODAL action mode is on, and should not be handled otherwise
      */
-    LongSparseArray<Integer> mCheckedIdStates = new LongSparseArray<Integer>();
-
-    public void onClick(RecyclerView.ViewHolder vh) {
+    public boolean onClick(RecyclerView.ViewHolder vh) {
         if (mChoiceMode == AbsListView.CHOICE_MODE_NONE)
-            return;
+            return false;
 
-        int checkedItemCount = mCheckStates.size();
         int position = vh.getAdapterPosition();
 
         if (position == RecyclerView.NO_POSITION) {
             Log.d(LOG_TAG, "Unable to Set Item State");
-            return;
+            return false;
         }
 
         switch (mChoiceMode) {
-            case AbsListView.CHOICE_MODE_NONE:
-                break;
             case AbsListView.CHOICE_MODE_SINGLE: {
-                boolean checked = mCheckStates.get(position, false);
-                if (!checked) {
-                    for (int i = 0; i < checkedItemCount; i++) {
-                        mAdapter.notifyItemChanged(mCheckStates.keyAt(i));
-                    }
-                    mCheckStates.clear();
-                    mCheckStates.put(position, true);
-                    mCheckedIdStates.clear();
-                    mCheckedIdStates.put(mAdapter.getItemId(position), position);
+                if (!isItemChecked(position)) {
+                    setChecked(position, true);
                 }
-                // We directly call onBindViewHolder here because notifying that an item has
-                // changed on an item that has the focus causes it to lose focus, which makes
-                // keyboard navigation a bit annoying
-                mAdapter.onBindViewHolder(vh, position);
                 break;
             }
             case AbsListView.CHOICE_MODE_MULTIPLE: {
-                boolean checked = mCheckStates.get(position, false);
-                mCheckStates.put(position, !checked);
-                // We directly call onBindViewHolder here because notifying that an item has
-                // changed on an item that has the focus causes it to lose focus, which makes
-                // keyboard navigation a bit annoying
-                mAdapter.onBindViewHolder(vh, position);
+                setChecked(position, !isItemChecked(position));
                 break;
             }
             case AbsListView.CHOICE_MODE_MULTIPLE_MODAL: {
-                throw new RuntimeException("Multiple Modal not implemented in ItemChoiceManager.");
+                if (mActionMode == null) {
+                    return false;
+                }
+                setChecked(position, !isItemChecked(position));
+                break;
+            }
+        }
+        // We directly call onBindViewHolder here because notifying that an item has
+        // changed on an item that has the focus causes it to lose focus, which makes
+        // keyboard navigation a bit annoying
+        mAdapter.onBindViewHolder(vh, position);
+        return mChoiceMode == AbsListView.CHOICE_MODE_MULTIPLE_MODAL;
+    }
+
+    /**
+     * Handles a long click on {@code vh}, which starts the CHOICE_MODE_MULTIPLE_MODAL action mode
+     * with its item checked.
+     *
+     * @return whether the long click was handled
+     */
+    public boolean onLongClick(RecyclerView.ViewHolder vh) {
+        if (mChoiceMode != AbsListView.CHOICE_MODE_MULTIPLE_MODAL || mActionMode != null)
+            return false;
+
+        int position = vh.getAdapterPosition();
+        if (position == RecyclerView.NO_POSITION || !startActionMode()) {
+            return false;
+        }
+        setChecked(position, true);
+        mAdapter.onBindViewHolder(vh, position);
+        return true;
+    }
+
+    /**
+     * Checks or unchecks the item at {@code position}, as a click would, and rebinds the items
+     * whose state changed.
+     */
+    public void setItemChecked(int position, boolean checked) {
+        if (mChoiceMode == AbsListView.CHOICE_MODE_NONE || isItemChecked(position) == checked)
+            return;
+        if (checked && mChoiceMode == AbsListView.CHOICE_MODE_MULTIPLE_MODAL
+                && mActionMode == null && !startActionMode()) {
+            return;
+        }
+        setChecked(position, checked);
+        mAdapter.notifyItemChanged(position);
+    }
+
+    /*
+        Updates the state of a position whose state is changing, without rebinding it. In single
+        choice mode, the items that were checked are unchecked and rebound.
+     */
+    private void setChecked(int position, boolean checked) {
+        long key = getKey(position);
+        if (checked) {
+            if (mChoiceMode == AbsListView.CHOICE_MODE_SINGLE) {
+                notifyCheckedItemsChanged();
+                mCheckedKeys.clear();
             }
+            mCheckedKeys.add(key);
+        } else {
+            mCheckedKeys.remove(key);
+        }
+
+        if (mChoiceMode == AbsListView.CHOICE_MODE_MULTIPLE_MODAL && mActionMode != null) {
+            mMultiChoiceModeListener.onItemCheckedStateChanged(mActionMode, position,
+                    mAdapter.getItemId(position), checked);
+            if (mCheckedKeys.isEmpty()) {
+                mActionMode.finish();
+            }
+        }
+    }
+
+    private boolean startActionMode() {
+        if (mActivity == null || mMultiChoiceModeListener == null) {
+            Log.d(LOG_TAG, "No MultiChoiceModeListener to start the action mode with");
+            return false;
         }
+        mActionMode = mActivity.startSupportActionMode(mActionModeCallback);
+        return mActionMode != null;
     }
 
     /**
      * Defines the choice behavior for the RecyclerView. By default, RecyclerViewChoiceMode does
      * not have any choice behavior (AbsListView.CHOICE_MODE_NONE). By setting the choiceMode to
      * AbsListView.CHOICE_MODE_SINGLE, the RecyclerView allows up to one item to  be in a
-     * chosen state.
+     * chosen state. AbsListView.CHOICE_MODE_MULTIPLE allows any number, and
+     * AbsListView.CHOICE_MODE_MULTIPLE_MODAL any number while an action mode, started by a long
+     * click, is on; that mode needs a {@link #setMultiChoiceModeListener listener}.
      *
-     * @param choiceMode One of AbsListView.CHOICE_MODE_NONE, AbsListView.CHOICE_MODE_SINGLE
+     * @param choiceMode One of AbsListView.CHOICE_MODE_NONE, AbsListView.CHOICE_MODE_SINGLE,
+     *                   AbsListView.CHOICE_MODE_MULTIPLE or AbsListView.CHOICE_MODE_MULTIPLE_MODAL
      */
     public void setChoiceMode(int choiceMode) {
         if (mChoiceMode != choiceMode) {
+            if (mActionMode != null) {
+                mActionMode.finish();
+            }
             mChoiceMode = choiceMode;
             clearSelections();
         }
     }
 
+    public int getChoiceMode() {
+        return mChoiceMode;
+    }
+
     /**
-     * Returns the checked state of the specified position. The result is only
-     * valid if the choice mode has been set to AbsListView.CHOICE_MODE_SINGLE,
-     * but the code does not check this.
+     * Sets the listener of the CHOICE_MODE_MULTIPLE_MODAL action mode, which is started from
+     * {@code activity}.
+     */
+    public void setMultiChoiceModeListener(AppCompatActivity activity,
+                                           MultiChoiceModeListener listener) {
+        mActivity = activity;
+        mMultiChoiceModeListener = listener;
+    }
+
+    /**
+     * Returns the checked state of the specified position.
      *
      * @param position The item whose checked state to return
      * @return The item's checked state
      * @see #setChoiceMode(int)
      */
     public boolean isItemChecked(int position) {
-        return mCheckStates.get(position);
+        return mCheckedKeys.contains(getKey(position));
+    }
+
+    public int getCheckedItemCount() {
+        ensureIndex();
+        return mCheckedKeys.size();
+    }
+
+    /**
+     * @return the positions of the checked items, in no particular order
+     */
+    public List<Integer> getCheckedItemPositions() {
+        ensureIndex();
+        List<Integer> positions = new ArrayList<Integer>(mCheckedKeys.size());
+        for (Long key : mCheckedKeys) {
+            // Restored items have no position until the data arrives
+            Integer position = mPositions.get(key);
+            if (position != null) {
+                positions.add(position);
+            }
+        }
+        return positions;
     }
 
     void clearSelections() {
-        mCheckStates.clear();
-        mCheckedIdStates.clear();
-    }
-
-    void confirmCheckedPositionsById(int oldItemCount) {
-        // Clear out the positional check states, we'll rebuild it below from IDs.
-        mCheckStates.clear();
-
-        for (int checkedIndex = 0; checkedIndex < mCheckedIdStates.size(); checkedIndex++) {
-            final long id = mCheckedIdStates.keyAt(checkedIndex);
-            final int lastPos = mCheckedIdStates.valueAt(checkedIndex);
-
-            final long lastPosId = mAdapter.getItemId(lastPos);
-            if (id != lastPosId) {
-                // Look around to see if the ID is nearby. If not, uncheck it.
-                final int start = Math.max(0, lastPos - CHECK_POSITION_SEARCH_DISTANCE);
-                final int end = Math.min(lastPos + CHECK_POSITION_SEARCH_DISTANCE, oldItemCount);
-                boolean found = false;
-                for (int searchPos = start; searchPos < end; searchPos++) {
-                    final long searchId = mAdapter.getItemId(searchPos);
-                    if (id == searchId) {
-                        found = true;
-                        mCheckStates.put(searchPos, true);
-                        mCheckedIdStates.setValueAt(checkedIndex, searchPos);
-                        break;
-                    }
-                }
+        mCheckedKeys.clear();
+    }
 
-                if (!found) {
-                    mCheckedIdStates.delete(id);
-                    checkedIndex--;
-                }
-            } else {
-                mCheckStates.put(lastPos, true);
+    /*
+        The key of a position is its stable id, so that the selection moves with the item.
+        Without stable ids, the selection stays at the position.
+     */
+    private long getKey(int position) {
+        return mAdapter.hasStableIds() ? mAdapter.getItemId(position) : position;
+    }
+
+    private void ensureIndex() {
+        if (!mIndexValid) {
+            rebuildIndex();
+        }
+        if (mDataChanged) {
+            mDataChanged = false;
+            dropMissingKeys();
+        }
+    }
+
+    /*
+        Maps every key to its position, in one pass over the adapter.
+     */
+    private void rebuildIndex() {
+        mPositions.clear();
+        int count = mAdapter.getItemCount();
+        for (int position = 0; position < count; position++) {
+            mPositions.put(getKey(position), position);
+        }
+        mIndexValid = true;
+    }
+
+    /**
+     * Matches the selection against the adapter's data now, rather than when it is next needed,
+     * e.g. so that the action mode ends as soon as its last item is gone. Call once after all the
+     * notifications of a change.
+     */
+    public void syncWithAdapter() {
+        ensureIndex();
+    }
+
+    /*
+        Called for every notification of the adapter, of which a single change may send many, so
+        the work is left to the next ensureIndex.
+     */
+    private void onDataChanged() {
+        mIndexValid = false;
+        mDataChanged = true;
+    }
+
+    /*
+        Forgets the checked items that are no longer in the adapter.
+     */
+    private void dropMissingKeys() {
+        for (Iterator<Long> keys = mCheckedKeys.iterator(); keys.hasNext(); ) {
+            if (!mPositions.containsKey(keys.next())) {
+                keys.remove();
             }
         }
+        if (mActionMode != null && mCheckedKeys.isEmpty()) {
+            mActionMode.finish();
+        }
+    }
+
+    private void notifyCheckedItemsChanged() {
+        for (Integer position : getCheckedItemPositions()) {
+            mAdapter.notifyItemChanged(position);
+        }
     }
 
     public void onBindViewHolder(RecyclerView.ViewHolder vh, int position) {
@@ -196,42 +389,40 @@ public class ItemChoiceManager {
         ViewCompat.setActivated(vh.itemView, checked);
     }
 
+    /*
+        A modal selection only lives as long as its action mode, so it isn't restored.
+     */
     public void onRestoreInstanceState(Bundle savedInstanceState) {
-        byte[] states = savedInstanceState.getByteArray(SELECTED_ITEMS_KEY);
-        if ( null != states ) {
-            Parcel inParcel = Parcel.obtain();
-            inParcel.unmarshall(states, 0, states.length);
-            inParcel.setDataPosition(0);
-            mCheckStates = inParcel.readSparseBooleanArray();
-            final int numStates = inParcel.readInt();
-            mCheckedIdStates.clear();
-            for (int i=0; i<numStates; i++) {
-                final long key = inParcel.readLong();
-                final int value = inParcel.readInt();
-                mCheckedIdStates.put(key, value);
+        long[] keys = savedInstanceState.getLongArray(SELECTED_ITEMS_KEY);
+        if ( null != keys && mChoiceMode != AbsListView.CHOICE_MODE_MULTIPLE_MODAL ) {
+            mCheckedKeys.clear();
+            for (long key : keys) {
+                mCheckedKeys.add(key);
             }
+            mIndexValid = false;
         }
     }
 
     public void onSaveInstanceState(Bundle outState) {
-        Parcel outParcel = Parcel.obtain();
-        outParcel.writeSparseBooleanArray(mCheckStates);
-        final int numStates = mCheckedIdStates.size();
-        outParcel.writeInt(numStates);
-        for (int i=0; i<numStates; i++) {
-            outParcel.writeLong(mCheckedIdStates.keyAt(i));
-            outParcel.writeInt(mCheckedIdStates.valueAt(i));
+        ensureIndex();
+        long[] keys = new long[mCheckedKeys.size()];
+        int i = 0;
+        for (Long key : mCheckedKeys) {
+            keys[i++] = key;
         }
-        byte[] states = outParcel.marshall();
-        outState.putByteArray(SELECTED_ITEMS_KEY, states);
-        outParcel.recycle();
+        outState.putLongArray(SELECTED_ITEMS_KEY, keys);
     }
 
+    /**
+     * @return the first checked position, or RecyclerView.NO_POSITION when nothing is checked
+     */
     public int getSelectedItemPosition() {
-        if ( mCheckStates.size() == 0 ) {
-            return RecyclerView.NO_POSITION;
-        } else {
-            return mCheckStates.keyAt(0);
+        int selected = RecyclerView.NO_POSITION;
+        for (Integer position : getCheckedItemPositions()) {
+            if ( selected == RecyclerView.NO_POSITION || position < selected ) {
+                selected = position;
+            }
         }
+        return selected;
     }
 }
@@ -15,6 +15,7 @@
  */
 package com.example.android.sunshine.app;
 
+import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.net.Uri;
@@ -48,6 +49,7 @@ public class MainActivity extends AppCompatActivity implements ForecastFragment.
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        StartupPipeline.mark(StartupPipeline.ACTIVITY_CREATED);
         super.onCreate(savedInstanceState);
         mLocation = Utility.getPreferredLocation(this);
         Uri contentUri = getIntent() != null ? getIntent().getData() : null;
@@ -89,24 +91,45 @@ public class MainActivity extends AppCompatActivity implements ForecastFragment.
                     WeatherContract.WeatherEntry.getDateFromUri(contentUri));
         }
 
-        SunshineSyncAdapter.initializeSyncAdapter(this);
-
-        // If Google Play Services is up to date, we'll want to register GCM. If it is not, we'll
-        // skip the registration and this device will not receive any downstream messages from
-        // our fake server. Because weather alerts are not a core feature of the app, this should
-        // not affect the behavior of the app, from a user perspective.
-        if (checkPlayServices()) {
-            // Because this is the initial creation of the app, we'll want to be certain we have
-            // a token. If we do not, then we will start the IntentService that will register this
-            // application with GCM.
-            SharedPreferences sharedPreferences =
-                    PreferenceManager.getDefaultSharedPreferences(this);
-            boolean sentToken = sharedPreferences.getBoolean(SENT_TOKEN_TO_SERVER, false);
-            if (!sentToken) {
-                Intent intent = new Intent(this, RegistrationIntentService.class);
-                startService(intent);
+        // The list shows what the database has as soon as its loader delivers. Setting up the
+        // sync account and GCM needs neither, and does disk and IPC work, so it waits until the
+        // first frame is drawn and runs in the background.
+        final Context appContext = getApplicationContext();
+        StartupPipeline.runAfterFirstDraw(this, new Runnable() {
+            @Override
+            public void run() {
+                SunshineSyncAdapter.initializeSyncAdapter(appContext);
+
+                // If Google Play Services is up to date, we'll want to register GCM. If it is not,
+                // we'll skip the registration and this device will not receive any downstream
+                // messages from our fake server. Because weather alerts are not a core feature of
+                // the app, this should not affect the behavior of the app, from a user
+                // perspective.
+                final int resultCode = GoogleApiAvailability.getInstance()
+                        .isGooglePlayServicesAvailable(appContext);
+                if (resultCode == ConnectionResult.SUCCESS) {
+                    // Because this is the initial creation of the app, we'll want to be certain we
+                    // have a token. If we do not, then we will start the IntentService that will
+                    // register this application with GCM.
+                    SharedPreferences sharedPreferences =
+                            PreferenceManager.getDefaultSharedPreferences(appContext);
+                    boolean sentToken = sharedPreferences.getBoolean(SENT_TOKEN_TO_SERVER, false);
+                    if (!sentToken) {
+                        Intent intent = new Intent(appContext, RegistrationIntentService.class);
+                        appContext.startService(intent);
+                    }
+                } else {
+                    runOnUiThread(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (!isFinishing()) {
+                                onPlayServicesUnavailable(resultCode);
+                            }
+                        }
+                    });
+                }
             }
-        }
+        });
     }
 
     @Override
@@ -177,23 +200,18 @@ public class MainActivity extends AppCompatActivity implements ForecastFragment.
     }
 
     /**
-     * Check the device to make sure it has the Google Play Services APK. If
-     * it doesn't, display a dialog that allows users to download the APK from
-     * the Google Play Store or enable it in the device's system settings.
+     * Called when the device doesn't have an up to date Google Play Services APK. Displays a
+     * dialog that allows users to download the APK from the Google Play Store or enable it in
+     * the device's system settings.
      */
-    private boolean checkPlayServices() {
+    private void onPlayServicesUnavailable(int resultCode) {
         GoogleApiAvailability apiAvailability = GoogleApiAvailability.getInstance();
-        int resultCode = apiAvailability.isGooglePlayServicesAvailable(this);
-        if (resultCode != ConnectionResult.SUCCESS) {
-            if (apiAvailability.isUserResolvableError(resultCode)) {
-                apiAvailability.getErrorDialog(this, resultCode,
-                        PLAY_SERVICES_RESOLUTION_REQUEST).show();
-            } else {
-                Log.i(LOG_TAG, "This device is not supported.");
-                finish();
-            }
-            return false;
+        if (apiAvailability.isUserResolvableError(resultCode)) {
+            apiAvailability.getErrorDialog(this, resultCode,
+                    PLAY_SERVICES_RESOLUTION_REQUEST).show();
+        } else {
+            Log.i(LOG_TAG, "This device is not supported.");
+            finish();
         }
-        return true;
     }
 }
@@ -0,0 +1,163 @@
+package com.example.android.sunshine.app;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.preference.PreferenceManager;
+
+import com.example.android.sunshine.app.sync.SunshineSyncAdapter;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * An immutable copy of the preferences that list binds, widgets, notifications and the sync
+ * read over and over. Reading a field costs nothing, where each {@link Utility} lookup used to
+ * fetch the SharedPreferences and resolve its key string on every call.
+ *
+ * A single OnSharedPreferenceChangeListener replaces the snapshot whenever a preference changes,
+ * in one volatile write, so any thread sees either the old or the new snapshot and never a mix.
+ * Components that react to preference changes and then read through {@link Utility} should
+ * register with {@link #registerListener} rather than with the SharedPreferences: those
+ * listeners are only called once the snapshot has been replaced.
+ *
+ * SharedPreferences calls its listeners on the main thread, so a write made on another thread
+ * only shows in the snapshot once the main thread gets to it. Code that writes a preference off
+ * the main thread and reads it back, like the sync with the location status, calls
+ * {@link #refresh} after writing.
+ */
+public class PreferencesSnapshot {
+
+    /* The names art pack images are formatted with */
+    static final String[] ART_CONDITIONS = {
+            "storm", "light_rain", "rain", "snow", "fog", "clear", "light_clouds", "clouds"
+    };
+
+    private static final Object sLock = new Object();
+    private static volatile PreferencesSnapshot sCurrent;
+    /* Held here, since SharedPreferences only keeps weak references to its listeners */
+    private static SharedPreferences.OnSharedPreferenceChangeListener sRefresher;
+    private static final List<SharedPreferences.OnSharedPreferenceChangeListener> sListeners =
+            new CopyOnWriteArrayList<SharedPreferences.OnSharedPreferenceChangeListener>();
+
+    public final String location;
+    public final boolean latLonAvailable;
+    public final float latitude;
+    public final float longitude;
+    @SunshineSyncAdapter.LocationStatus
+    public final int locationStatus;
+    public final boolean metric;
+    public final boolean localGraphics;
+    /** The art pack, as a URL format taking a name from {@link #ART_CONDITIONS} */
+    public final String artPack;
+    /* Art pack image URLs, keyed by the names in ART_CONDITIONS */
+    private final Map<String, String> mArtUrls = new HashMap<String, String>();
+
+    @SuppressWarnings("ResourceType")
+    private PreferencesSnapshot(Context context, SharedPreferences prefs) {
+        location = prefs.getString(context.getString(R.string.pref_location_key),
+                context.getString(R.string.pref_location_default));
+        String latitudeKey = context.getString(R.string.pref_location_latitude);
+        String longitudeKey = context.getString(R.string.pref_location_longitude);
+        latLonAvailable = prefs.contains(latitudeKey) && prefs.contains(longitudeKey);
+        latitude = prefs.getFloat(latitudeKey, Utility.DEFAULT_LATLONG);
+        longitude = prefs.getFloat(longitudeKey, Utility.DEFAULT_LATLONG);
+        locationStatus = prefs.getInt(context.getString(R.string.pref_location_status_key),
+                SunshineSyncAdapter.LOCATION_STATUS_UNKNOWN);
+
+        String metricUnits = context.getString(R.string.pref_units_metric);
+        metric = prefs.getString(context.getString(R.string.pref_units_key), metricUnits)
+                .equals(metricUnits);
+
+        String sunshineArtPack = context.getString(R.string.pref_art_pack_sunshine);
+        artPack = prefs.getString(context.getString(R.string.pref_art_pack_key),
+                sunshineArtPack);
+        localGraphics = artPack.equals(sunshineArtPack);
+        for (String condition : ART_CONDITIONS) {
+            mArtUrls.put(condition, String.format(Locale.US, artPack, condition));
+        }
+    }
+
+    /**
+     * @return the current snapshot. The first call reads the preferences and starts listening
+     * for changes; every other call is a field read.
+     */
+    public static PreferencesSnapshot get(Context context) {
+        PreferencesSnapshot snapshot = sCurrent;
+        if (snapshot != null) {
+            return snapshot;
+        }
+        synchronized (sLock) {
+            if (sCurrent == null) {
+                final Context appContext = context.getApplicationContext();
+                final SharedPreferences prefs =
+                        PreferenceManager.getDefaultSharedPreferences(appContext);
+                // Listen before reading, so that no change can fall in between
+                sRefresher = new SharedPreferences.OnSharedPreferenceChangeListener() {
+                    @Override
+                    public void onSharedPreferenceChanged(SharedPreferences sharedPreferences,
+                                                          String key) {
+                        rebuild(appContext, prefs);
+                        for (SharedPreferences.OnSharedPreferenceChangeListener listener
+                                : sListeners) {
+                            listener.onSharedPreferenceChanged(sharedPreferences, key);
+                        }
+                    }
+                };
+                prefs.registerOnSharedPreferenceChangeListener(sRefresher);
+                sCurrent = new PreferencesSnapshot(appContext, prefs);
+            }
+            return sCurrent;
+        }
+    }
+
+    /**
+     * Replaces the snapshot right away, for a preference just written on the current thread.
+     */
+    public static void refresh(Context context) {
+        if (sCurrent == null) {
+            // Not read yet; the first get reads the preferences as they are
+            return;
+        }
+        Context appContext = context.getApplicationContext();
+        rebuild(appContext, PreferenceManager.getDefaultSharedPreferences(appContext));
+    }
+
+    /*
+        Reads and publishes under the lock, so that a snapshot read earlier never replaces one
+        read later.
+     */
+    private static void rebuild(Context appContext, SharedPreferences prefs) {
+        synchronized (sLock) {
+            sCurrent = new PreferencesSnapshot(appContext, prefs);
+        }
+    }
+
+    /**
+     * Calls {@code listener} on the main thread after each preference change, once the snapshot
+     * reflects it. Unlike SharedPreferences, this holds a strong reference to the listener until
+     * it is unregistered.
+     */
+    public static void registerListener(Context context,
+                                        SharedPreferences.OnSharedPreferenceChangeListener listener) {
+        get(context);
+        if (!sListeners.contains(listener)) {
+            sListeners.add(listener);
+        }
+    }
+
+    public static void unregisterListener(
+            SharedPreferences.OnSharedPreferenceChangeListener listener) {
+        sListeners.remove(listener);
+    }
+
+    /**
+     * @param condition one of the names in {@link #ART_CONDITIONS}
+     * @return the URL of the art pack image for {@code condition}
+     */
+    public String getArtUrl(String condition) {
+        return mArtUrls.get(condition);
+    }
+}
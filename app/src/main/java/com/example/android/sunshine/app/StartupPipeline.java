@@ -0,0 +1,149 @@
+package com.example.android.sunshine.app;
+
+import android.app.Activity;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps work that the first screen doesn't need off the way to it, and records when the
+ * milestones of a cold start are reached.
+ *
+ * {@link #runAfterFirstDraw} holds a task until the activity has drawn its first frame, then
+ * runs it on a background thread. Each milestone only counts the first time it is reached in the
+ * process, so a start is reported once, as a single line that a benchmark can parse:
+ * {@code adb logcat -s StartupPipeline}.
+ *
+ * The process may have been started long before the activity, by the sync, a widget or GCM.
+ * Such a warm start is reported as one, relative to the creation of the activity.
+ */
+public class StartupPipeline {
+    public static final String LOG_TAG = StartupPipeline.class.getSimpleName();
+
+    /** The first component of the process is created */
+    public static final int PROCESS_START = 0;
+    public static final int ACTIVITY_CREATED = 1;
+    public static final int FIRST_FRAME = 2;
+    /** The first forecast row from the database is bound */
+    public static final int FIRST_DATA_BIND = 3;
+    /** The forecast is loaded with no rows to bind, as on a fresh install */
+    public static final int FIRST_LOAD_EMPTY = 4;
+
+    private static final String[] MILESTONE_NAMES = {
+            "processStart", "activityCreated", "firstFrame", "firstDataBind", "firstLoadEmpty"
+    };
+
+    /*
+        Longest time from the start of the process to the creation of the activity for the
+        activity to have been what started it
+     */
+    static final long COLD_START_MAX_MS = 5 * 1000;
+
+    /* Elapsed realtime of each milestone, or 0 until it is reached; guarded by the class */
+    private static final long[] sMilestones = new long[MILESTONE_NAMES.length];
+    private static boolean sReported;
+
+    /* A single thread that only lives while there is work, since startup work is rare */
+    private static final Executor sExecutor = new ThreadPoolExecutor(0, 1, 1, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>());
+
+    private StartupPipeline() {
+    }
+
+    /**
+     * Records that {@code milestone} is reached now, unless it was already reached in this process.
+     * Once the first frame and the first data, bound or loaded empty, are both reached, the start
+     * is logged.
+     */
+    public static void mark(int milestone) {
+        markAt(milestone, SystemClock.elapsedRealtime());
+    }
+
+    static synchronized void markAt(int milestone, long elapsedRealtime) {
+        if (sMilestones[milestone] != 0) {
+            return;
+        }
+        sMilestones[milestone] = elapsedRealtime;
+        if (!sReported && sMilestones[FIRST_FRAME] != 0
+                && (sMilestones[FIRST_DATA_BIND] != 0 || sMilestones[FIRST_LOAD_EMPTY] != 0)) {
+            sReported = true;
+            Log.i(LOG_TAG, dumpMilestones());
+        }
+    }
+
+    /**
+     * @return the elapsed realtime {@code milestone} was reached at, or 0 if it wasn't yet
+     */
+    public static synchronized long getMilestone(int milestone) {
+        return sMilestones[milestone];
+    }
+
+    /**
+     * @return whether the process was started well before the activity, by something else
+     */
+    public static synchronized boolean isWarmStart() {
+        return sMilestones[PROCESS_START] != 0 && sMilestones[ACTIVITY_CREATED] != 0
+                && sMilestones[ACTIVITY_CREATED] - sMilestones[PROCESS_START] > COLD_START_MAX_MS;
+    }
+
+    /**
+     * @return every milestone reached, in milliseconds since the process started or, when that
+     * wasn't recorded, since the first milestone. A warm start is measured from the creation of
+     * the activity instead, and leaves out the start of the process.
+     */
+    public static synchronized String dumpMilestones() {
+        boolean warm = isWarmStart();
+        long start = 0;
+        for (int i = 0; i < sMilestones.length; i++) {
+            long time = sMilestones[i];
+            if (time != 0 && !(warm && i == PROCESS_START) && (start == 0 || time < start)) {
+                start = time;
+            }
+        }
+        StringBuilder builder = new StringBuilder(warm ? "Warm startup:" : "Startup:");
+        for (int i = 0; i < sMilestones.length; i++) {
+            if (sMilestones[i] != 0 && !(warm && i == PROCESS_START)) {
+                builder.append(' ').append(MILESTONE_NAMES[i]).append('=')
+                        .append(sMilestones[i] - start);
+            }
+        }
+        return builder.toString();
+    }
+
+    static synchronized void reset() {
+        for (int i = 0; i < sMilestones.length; i++) {
+            sMilestones[i] = 0;
+        }
+        sReported = false;
+    }
+
+    /**
+     * Runs {@code task} on a background thread once {@code activity} has drawn its first frame,
+     * which also marks {@link #FIRST_FRAME}. Call from onCreate.
+     */
+    public static void runAfterFirstDraw(Activity activity, final Runnable task) {
+        final View decorView = activity.getWindow().getDecorView();
+        decorView.getViewTreeObserver().addOnPreDrawListener(
+                new ViewTreeObserver.OnPreDrawListener() {
+                    @Override
+                    public boolean onPreDraw() {
+                        decorView.getViewTreeObserver().removeOnPreDrawListener(this);
+                        // Posted from here, this runs right after the frame is drawn
+                        decorView.post(new Runnable() {
+                            @Override
+                            public void run() {
+                                mark(FIRST_FRAME);
+                                sExecutor.execute(task);
+                            }
+                        });
+                        return true;
+                    }
+                });
+    }
+}
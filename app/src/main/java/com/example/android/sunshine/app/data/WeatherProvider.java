@@ -24,6 +24,8 @@ import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteQueryBuilder;
 import android.net.Uri;
 
+import com.example.android.sunshine.app.StartupPipeline;
+
 public class WeatherProvider extends ContentProvider {
 
     // The URI Matcher used by this content provider.
@@ -139,6 +141,8 @@ public class WeatherProvider extends ContentProvider {
      */
     @Override
     public boolean onCreate() {
+        // Providers are created before any other component, so this is as early as app code runs
+        StartupPipeline.mark(StartupPipeline.PROCESS_START);
         mOpenHelper = new WeatherDbHelper(getContext());
         return true;
     }
@@ -1,5 +1,6 @@
 package com.example.android.sunshine.app.sync;
 
+import com.example.android.sunshine.app.wear.WearContract;
 import com.google.android.gms.wearable.MessageEvent;
 import com.google.android.gms.wearable.WearableListenerService;
 
@@ -11,8 +12,8 @@ public class ListenerService extends WearableListenerService {
     @Override
     public void onMessageReceived(MessageEvent messageEvent) {
 
-        if (messageEvent.getPath().equals("/update_path")) {
-            SunshineSyncAdapter.syncImmediately(this);
+        if (messageEvent.getPath().equals(WearContract.PATH_UPDATE_REQUEST)) {
+            SunshineSyncAdapter.syncForWearUpdateRequest(this);
         } else {
             super.onMessageReceived(messageEvent);
         }
@@ -0,0 +1,218 @@
+package com.example.android.sunshine.app.sync;
+
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Hands the {@link SyncSnapshot} of a sync to everything that shows the weather at once, each on
+ * its own thread, instead of one after another on the sync thread.
+ *
+ * {@link #dispatch} returns once every consumer is done or out of time, so the sync still holds
+ * the process while they run; a consumer that runs out of time is interrupted, and counted as
+ * timed out however it ends. The latency of each consumer is measured from the start of the
+ * dispatch.
+ */
+public class PostSyncDispatcher {
+    private static final String LOG_TAG = PostSyncDispatcher.class.getSimpleName();
+
+    public interface Consumer {
+        void onDataUpdated(SyncSnapshot snapshot) throws Exception;
+    }
+
+    /**
+     * Counters for a single consumer.
+     */
+    public static class ConsumerStats {
+        public String name;
+        public int completedCount;
+        public int failedCount;
+        public int timedOutCount;
+        public long lastLatencyMs;
+        public long maxLatencyMs;
+        public long totalLatencyMs;
+
+        @Override
+        public String toString() {
+            return name + ": completed=" + completedCount + " failed=" + failedCount
+                    + " timedOut=" + timedOutCount + " lastLatencyMs=" + lastLatencyMs
+                    + " maxLatencyMs=" + maxLatencyMs + " avgLatencyMs="
+                    + (completedCount == 0 ? 0 : totalLatencyMs / completedCount);
+        }
+    }
+
+    /*
+        The outcome of one consumer in one dispatch, guarded by the registrations. Whichever of
+        the consumer and the timeout comes first decides what is counted.
+     */
+    private static class Run {
+        boolean finished;
+        boolean timedOut;
+    }
+
+    private static class Registration {
+        final Consumer consumer;
+        final long timeoutMs;
+        final ConsumerStats stats = new ConsumerStats();
+
+        Registration(String name, Consumer consumer, long timeoutMs) {
+            this.consumer = consumer;
+            this.timeoutMs = timeoutMs;
+            stats.name = name;
+        }
+    }
+
+    /* Keyed by name, in order of registration; stats are guarded by the map */
+    private final Map<String, Registration> mRegistrations =
+            new LinkedHashMap<String, Registration>();
+
+    /* Threads only live while there is work; a sync happens every few hours */
+    private final ExecutorService mExecutor = new ThreadPoolExecutor(0, Integer.MAX_VALUE,
+            10, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    return new Thread(runnable, LOG_TAG);
+                }
+            });
+
+    /**
+     * Adds {@code consumer}, replacing any consumer registered under {@code name}.
+     *
+     * @param timeoutMs how long {@link #dispatch} waits for the consumer
+     */
+    public void register(String name, long timeoutMs, Consumer consumer) {
+        synchronized (mRegistrations) {
+            mRegistrations.put(name, new Registration(name, consumer, timeoutMs));
+        }
+    }
+
+    /**
+     * Runs every consumer with {@code snapshot} in parallel, and waits until each of them is done
+     * or has used up its timeout.
+     */
+    public void dispatch(final SyncSnapshot snapshot) {
+        List<Registration> registrations;
+        synchronized (mRegistrations) {
+            registrations = new ArrayList<Registration>(mRegistrations.values());
+        }
+        final long start = SystemClock.elapsedRealtime();
+        List<Future<?>> futures = new ArrayList<Future<?>>(registrations.size());
+        List<Run> runs = new ArrayList<Run>(registrations.size());
+        for (final Registration registration : registrations) {
+            final Run run = new Run();
+            runs.add(run);
+            futures.add(mExecutor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    boolean completed;
+                    try {
+                        registration.consumer.onDataUpdated(snapshot);
+                        completed = true;
+                    } catch (InterruptedException e) {
+                        // Timed out, which dispatch counts
+                        return;
+                    } catch (Exception e) {
+                        Log.e(LOG_TAG, registration.stats.name + " failed", e);
+                        completed = false;
+                    }
+                    onFinished(registration, run, completed,
+                            SystemClock.elapsedRealtime() - start);
+                }
+            }));
+        }
+
+        for (int i = 0; i < futures.size(); i++) {
+            Registration registration = registrations.get(i);
+            long remainingMs = start + registration.timeoutMs - SystemClock.elapsedRealtime();
+            try {
+                futures.get(i).get(Math.max(remainingMs, 0), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                synchronized (mRegistrations) {
+                    Run run = runs.get(i);
+                    if (run.finished) {
+                        // Finished just now, after all
+                        continue;
+                    }
+                    run.timedOut = true;
+                    registration.stats.timedOutCount++;
+                }
+                futures.get(i).cancel(true);
+                Log.w(LOG_TAG, registration.stats.name + " timed out after "
+                        + registration.timeoutMs + "ms");
+            } catch (ExecutionException e) {
+                // The task catches everything the consumer throws
+                Log.e(LOG_TAG, registration.stats.name + " failed", e);
+            } catch (InterruptedException e) {
+                // The sync was cancelled; leave the consumers to finish on their own
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void onFinished(Registration registration, Run run, boolean completed,
+                            long latencyMs) {
+        synchronized (mRegistrations) {
+            run.finished = true;
+            if (run.timedOut) {
+                // Already counted, even if the consumer ignored the interrupt
+                return;
+            }
+            ConsumerStats stats = registration.stats;
+            if (completed) {
+                stats.completedCount++;
+                stats.lastLatencyMs = latencyMs;
+                stats.maxLatencyMs = Math.max(stats.maxLatencyMs, latencyMs);
+                stats.totalLatencyMs += latencyMs;
+            } else {
+                stats.failedCount++;
+            }
+        }
+    }
+
+    /**
+     * @return a copy of the counters of each consumer, keyed by name
+     */
+    public Map<String, ConsumerStats> getStats() {
+        Map<String, ConsumerStats> copy = new LinkedHashMap<String, ConsumerStats>();
+        synchronized (mRegistrations) {
+            for (Registration registration : mRegistrations.values()) {
+                ConsumerStats stats = new ConsumerStats();
+                stats.name = registration.stats.name;
+                stats.completedCount = registration.stats.completedCount;
+                stats.failedCount = registration.stats.failedCount;
+                stats.timedOutCount = registration.stats.timedOutCount;
+                stats.lastLatencyMs = registration.stats.lastLatencyMs;
+                stats.maxLatencyMs = registration.stats.maxLatencyMs;
+                stats.totalLatencyMs = registration.stats.totalLatencyMs;
+                copy.put(stats.name, stats);
+            }
+        }
+        return copy;
+    }
+
+    public String dumpStats() {
+        StringBuilder builder = new StringBuilder();
+        for (ConsumerStats stats : getStats().values()) {
+            if (builder.length() > 0) {
+                builder.append('\n');
+            }
+            builder.append(stats);
+        }
+        return builder.toString();
+    }
+}
@@ -2,7 +2,6 @@ package com.example.android.sunshine.app.sync;
 
 import android.accounts.Account;
 import android.accounts.AccountManager;
-import android.annotation.SuppressLint;
 import android.app.NotificationManager;
 import android.app.PendingIntent;
 import android.content.AbstractThreadedSyncAdapter;
@@ -29,18 +28,20 @@ import android.support.v4.app.TaskStackBuilder;
 import android.text.format.Time;
 import android.util.Log;
 
-import com.bumptech.glide.Glide;
+import com.example.android.sunshine.app.ArtPrefetchService;
 import com.example.android.sunshine.app.BuildConfig;
 import com.example.android.sunshine.app.MainActivity;
+import com.example.android.sunshine.app.PreferencesSnapshot;
 import com.example.android.sunshine.app.R;
 import com.example.android.sunshine.app.Utility;
 import com.example.android.sunshine.app.data.WeatherContract;
 import com.example.android.sunshine.app.muzei.WeatherMuzeiSource;
+import com.example.android.sunshine.app.wear.WearContract;
+import com.example.android.sunshine.app.wear.WearMessageSender;
+import com.example.android.sunshine.app.wear.WeatherPayload;
+import com.example.android.sunshine.app.wear.WeatherPayloadCodec;
 import com.google.android.gms.common.ConnectionResult;
 import com.google.android.gms.common.api.GoogleApiClient;
-import com.google.android.gms.wearable.MessageApi;
-import com.google.android.gms.wearable.Node;
-import com.google.android.gms.wearable.NodeApi;
 import com.google.android.gms.wearable.Wearable;
 
 import org.json.JSONArray;
@@ -62,27 +63,22 @@ public class SunshineSyncAdapter extends AbstractThreadedSyncAdapter implements
     public final String LOG_TAG = SunshineSyncAdapter.class.getSimpleName();
     public static final String ACTION_DATA_UPDATED =
             "com.example.android.sunshine.app.ACTION_DATA_UPDATED";
+    // Sync extra set when a wearable asked for the weather, in which case it gets pushed even
+    // if it has not changed since the wearable last acknowledged it.
+    public static final String SYNC_EXTRAS_WEAR_UPDATE_REQUEST = "wear_update_request";
     // Interval at which to sync with the weather, in seconds.
     // 60 seconds (1 minute) * 180 = 3 hours
     public static final int SYNC_INTERVAL = 60 * 180;
     public static final int SYNC_FLEXTIME = SYNC_INTERVAL/3;
+    // Resend an unchanged forecast to a watch at the last sync before it would show it as stale
+    private static final long WEAR_RESEND_AFTER_MS =
+            WeatherPayload.STALE_AFTER_MS - SYNC_INTERVAL * 1000L;
     private static final long DAY_IN_MILLIS = 1000 * 60 * 60 * 24;
     private static final int WEATHER_NOTIFICATION_ID = 3004;
-
-
-    private static final String[] NOTIFY_WEATHER_PROJECTION = new String[] {
-            WeatherContract.WeatherEntry.COLUMN_WEATHER_ID,
-            WeatherContract.WeatherEntry.COLUMN_MAX_TEMP,
-            WeatherContract.WeatherEntry.COLUMN_MIN_TEMP,
-            WeatherContract.WeatherEntry.COLUMN_SHORT_DESC
-    };
-
-    // these indices must match the projection
-    private static final int INDEX_WEATHER_ID = 0;
-    private static final int INDEX_MAX_TEMP = 1;
-    private static final int INDEX_MIN_TEMP = 2;
-    private static final int INDEX_SHORT_DESC = 3;
-
+    // How long a sync waits for each consumer of its data, in milliseconds. Widgets, Muzei and
+    // wear only hand the data on; the notification may have to fetch its icon.
+    private static final long BROADCAST_TIMEOUT_MS = 5 * 1000;
+    private static final long NOTIFICATION_TIMEOUT_MS = 15 * 1000;
 
 
     @Retention(RetentionPolicy.SOURCE)
@@ -95,10 +91,9 @@ public class SunshineSyncAdapter extends AbstractThreadedSyncAdapter implements
     public static final int LOCATION_STATUS_UNKNOWN = 3;
     public static final int LOCATION_STATUS_INVALID = 4;
 
-    String mHigh;
-    String mLow;
-    int mWeatherId;
     GoogleApiClient mGoogleApiClient;
+    WearMessageSender mWearMessageSender;
+    PostSyncDispatcher mPostSyncDispatcher;
 
     public SunshineSyncAdapter(Context context, boolean autoInitialize) {
         super(context, autoInitialize);
@@ -112,6 +107,41 @@ public class SunshineSyncAdapter extends AbstractThreadedSyncAdapter implements
 
         }
         mGoogleApiClient.connect();
+        mWearMessageSender = new WearMessageSender(mGoogleApiClient,
+                WearContract.CAPABILITY_WATCH_FACE);
+
+        mPostSyncDispatcher = new PostSyncDispatcher();
+        mPostSyncDispatcher.register("widgets", BROADCAST_TIMEOUT_MS,
+                new PostSyncDispatcher.Consumer() {
+                    @Override
+                    public void onDataUpdated(SyncSnapshot snapshot) {
+                        updateWidgets(snapshot);
+                    }
+                });
+        mPostSyncDispatcher.register("muzei", BROADCAST_TIMEOUT_MS,
+                new PostSyncDispatcher.Consumer() {
+                    @Override
+                    public void onDataUpdated(SyncSnapshot snapshot) {
+                        updateMuzei(snapshot);
+                    }
+                });
+        mPostSyncDispatcher.register("notification", NOTIFICATION_TIMEOUT_MS,
+                new PostSyncDispatcher.Consumer() {
+                    @Override
+                    public void onDataUpdated(SyncSnapshot snapshot)
+                            throws InterruptedException {
+                        notifyWeather(snapshot);
+                    }
+                });
+        mPostSyncDispatcher.register("wear", BROADCAST_TIMEOUT_MS,
+                new PostSyncDispatcher.Consumer() {
+                    @Override
+                    public void onDataUpdated(SyncSnapshot snapshot) {
+                        mWearMessageSender.sendIfChanged(WearContract.PATH_WEATHER,
+                                snapshot.getWearPayload(), snapshot.getWearFingerprint(),
+                                WEAR_RESEND_AFTER_MS);
+                    }
+                });
     }
 
     @Override
@@ -119,29 +149,6 @@ public class SunshineSyncAdapter extends AbstractThreadedSyncAdapter implements
         //Requires a new thread to avoid blocking the UI
     }
 
-    private class SendToDataLayerThread extends Thread {
-        String path;
-        String message = mHigh + " " + mLow + " " + mWeatherId;
-        // Constructor to send a message to the data layer
-        SendToDataLayerThread(String p) {
-            path = p;
-        }
-
-        public void run() {
-            NodeApi.GetConnectedNodesResult nodes = Wearable.NodeApi.getConnectedNodes(mGoogleApiClient).await();
-            for (Node node : nodes.getNodes()) {
-                MessageApi.SendMessageResult result = Wearable.MessageApi.sendMessage(mGoogleApiClient, node.getId(), path, message.getBytes()).await();
-                if (result.getStatus().isSuccess()) {
-                    Log.v("myTag", "Message: {" + message + "} sent to: " + node.getDisplayName());
-                }
-                else {
-                    // Log an error
-                    Log.v("myTag", "ERROR: failed to send Message");
-                }
-            }
-        }
-    }
-
     @Override
     public void onConnectionSuspended(int i) {
 
@@ -240,7 +247,8 @@ public class SunshineSyncAdapter extends AbstractThreadedSyncAdapter implements
                 return;
             }
             forecastJsonStr = buffer.toString();
-            getWeatherDataFromJson(forecastJsonStr, locationQuery);
+            getWeatherDataFromJson(forecastJsonStr, locationQuery,
+                    extras.getBoolean(SYNC_EXTRAS_WEAR_UPDATE_REQUEST, false));
         } catch (IOException e) {
             Log.e(LOG_TAG, "Error ", e);
             // If the code didn't successfully get the weather data, there's no point in attempting
@@ -271,9 +279,15 @@ public class SunshineSyncAdapter extends AbstractThreadedSyncAdapter implements
      *
      * Fortunately parsing is easy:  constructor takes the JSON string and converts it
      * into an Object hierarchy for us.
+     *
+     * Once the forecast is written, today's weather and the forecast for wearables are handed
+     * to the {@link PostSyncDispatcher} in a {@link SyncSnapshot}. The whole forecast is pushed
+     * to connected wearables in one message when it differs from what they last acknowledged,
+     * or unconditionally when {@code wearUpdateRequest} is set.
      */
     private void getWeatherDataFromJson(String forecastJsonStr,
-                                        String locationSetting)
+                                        String locationSetting,
+                                        boolean wearUpdateRequest)
             throws JSONException {
 
         // Now we have a String representing the complete forecast in JSON Format.
@@ -361,6 +375,19 @@ public class SunshineSyncAdapter extends AbstractThreadedSyncAdapter implements
             // now we work exclusively in UTC
             dayTime = new Time();
 
+            // Temperatures go to the watch raw, in Celsius, so that it can format them in the
+            // user's preferred units itself.
+            WeatherPayload payload = new WeatherPayload();
+            payload.setMetric(Utility.isMetric(context));
+            payload.setTimestamp(System.currentTimeMillis());
+
+            // Today's weather, for the snapshot
+            long todayDate = 0;
+            int todayWeatherId = 0;
+            double todayHigh = 0;
+            double todayLow = 0;
+            String todayDescription = null;
+
             for(int i = 0; i < weatherArray.length(); i++) {
                 // These are the values that will be collected.
                 long dateTime;
@@ -399,12 +426,15 @@ public class SunshineSyncAdapter extends AbstractThreadedSyncAdapter implements
                 high = temperatureObject.getDouble(OWM_MAX);
                 low = temperatureObject.getDouble(OWM_MIN);
 
-                if(i == 0){
-                    mHigh = Utility.formatTemperature(getContext(), high);
-                    mLow = Utility.formatTemperature(getContext(), low);
-                    mWeatherId = weatherId;
-                    new SendToDataLayerThread("/message_path").start();
-
+                if (i == 0) {
+                    payload.setToday(high, low, weatherId);
+                    todayDate = dateTime;
+                    todayWeatherId = weatherId;
+                    todayHigh = high;
+                    todayLow = low;
+                    todayDescription = description;
+                } else {
+                    payload.addDay(high, low, weatherId);
                 }
 
                 ContentValues weatherValues = new ContentValues();
@@ -435,11 +465,17 @@ public class SunshineSyncAdapter extends AbstractThreadedSyncAdapter implements
                         WeatherContract.WeatherEntry.COLUMN_DATE + " <= ?",
                         new String[] {Long.toString(dayTime.setJulianDay(julianStartDay-1))});
 
-                updateWidgets();
-                updateMuzei();
-                notifyWeather();
+                ArtPrefetchService.prefetchIfNeeded(getContext());
+                if (wearUpdateRequest) {
+                    mWearMessageSender.forgetAcknowledged();
+                }
+                mPostSyncDispatcher.dispatch(new SyncSnapshot(locationSetting, todayDate,
+                        todayWeatherId, todayHigh, todayLow, todayDescription,
+                        WeatherPayloadCodec.encode(payload), payload.fingerprint()));
             }
             Log.d(LOG_TAG, "Sync Complete. " + cVVector.size() + " Inserted");
+            Log.d(LOG_TAG, "Post-sync stats:\n" + mPostSyncDispatcher.dumpStats());
+            Log.d(LOG_TAG, "Wear delivery stats: " + mWearMessageSender.dumpStats());
             setLocationStatus(getContext(), LOCATION_STATUS_OK);
 
         } catch (JSONException e) {
@@ -449,25 +485,29 @@ public class SunshineSyncAdapter extends AbstractThreadedSyncAdapter implements
         }
     }
 
-    private void updateWidgets() {
+    private void updateWidgets(SyncSnapshot snapshot) {
         Context context = getContext();
         // Setting the package ensures that only components in our app will receive the broadcast
-        Intent dataUpdatedIntent = new Intent(ACTION_DATA_UPDATED)
-                .setPackage(context.getPackageName());
+        Intent dataUpdatedIntent = snapshot.putExtras(new Intent(ACTION_DATA_UPDATED)
+                .setPackage(context.getPackageName()));
         context.sendBroadcast(dataUpdatedIntent);
     }
 
-    private void updateMuzei() {
+    private void updateMuzei(SyncSnapshot snapshot) {
         // Muzei is only compatible with Jelly Bean MR1+ devices, so there's no need to update the
         // Muzei background on lower API level devices
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
             Context context = getContext();
-            context.startService(new Intent(ACTION_DATA_UPDATED)
-                    .setClass(context, WeatherMuzeiSource.class));
+            context.startService(snapshot.putExtras(new Intent(ACTION_DATA_UPDATED)
+                    .setClass(context, WeatherMuzeiSource.class)));
         }
     }
 
-    private void notifyWeather() {
+    /**
+     * @throws InterruptedException if interrupted before the notification was posted, in which
+     * case it isn't
+     */
+    private void notifyWeather(SyncSnapshot snapshot) throws InterruptedException {
         Context context = getContext();
         //checking the last update and notify if it' the first of the day
         SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(context);
@@ -482,48 +522,35 @@ public class SunshineSyncAdapter extends AbstractThreadedSyncAdapter implements
 
             if (System.currentTimeMillis() - lastSync >= DAY_IN_MILLIS) {
                 // Last sync was more than 1 day ago, let's send a notification with the weather.
-                String locationQuery = Utility.getPreferredLocation(context);
-
-                Uri weatherUri = WeatherContract.WeatherEntry.buildWeatherLocationWithDate(locationQuery, System.currentTimeMillis());
-
-                // we'll query our contentProvider, as always
-                Cursor cursor = context.getContentResolver().query(weatherUri, NOTIFY_WEATHER_PROJECTION, null, null, null);
-
-                if (cursor.moveToFirst()) {
-                    int weatherId = cursor.getInt(INDEX_WEATHER_ID);
-                    double high = cursor.getDouble(INDEX_MAX_TEMP);
-                    double low = cursor.getDouble(INDEX_MIN_TEMP);
-                    String desc = cursor.getString(INDEX_SHORT_DESC);
+                // The snapshot has today's weather, as just written
+                if (snapshot.isForPreferredLocation(context)) {
+                    int weatherId = snapshot.weatherId;
+                    double high = snapshot.high;
+                    double low = snapshot.low;
+                    String desc = snapshot.description;
 
                     int iconId = Utility.getIconResourceForWeatherCondition(weatherId);
                     Resources resources = context.getResources();
                     int artResourceId = Utility.getArtResourceForWeatherCondition(weatherId);
                     String artUrl = Utility.getArtUrlForWeatherCondition(context, weatherId);
 
-                    // On Honeycomb and higher devices, we can retrieve the size of the large icon
-                    // Prior to that, we use a fixed size
-                    @SuppressLint("InlinedApi")
-                    int largeIconWidth = Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB
-                            ? resources.getDimensionPixelSize(android.R.dimen.notification_large_icon_width)
-                            : resources.getDimensionPixelSize(R.dimen.notification_large_icon_default);
-                    @SuppressLint("InlinedApi")
-                    int largeIconHeight = Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB
-                            ? resources.getDimensionPixelSize(android.R.dimen.notification_large_icon_height)
-                            : resources.getDimensionPixelSize(R.dimen.notification_large_icon_default);
-
-                    // Retrieve the large icon
+                    int largeIconWidth = ArtPrefetchService.getLargeIconWidth(context);
+                    int largeIconHeight = ArtPrefetchService.getLargeIconHeight(context);
+
+                    // Retrieve the large icon, which the ArtPrefetchService may have cached
                     Bitmap largeIcon;
                     try {
-                        largeIcon = Glide.with(context)
-                                .load(artUrl)
-                                .asBitmap()
+                        largeIcon = ArtPrefetchService.loadNotificationIcon(context, artUrl)
                                 .error(artResourceId)
-                                .fitCenter()
                                 .into(largeIconWidth, largeIconHeight).get();
-                    } catch (InterruptedException | ExecutionException e) {
+                    } catch (ExecutionException e) {
                         Log.e(LOG_TAG, "Error retrieving large icon from " + artUrl, e);
                         largeIcon = BitmapFactory.decodeResource(resources, artResourceId);
                     }
+                    // The dispatcher gave up on the notification; don't post it late
+                    if (Thread.interrupted()) {
+                        throw new InterruptedException();
+                    }
                     String title = context.getString(R.string.app_name);
 
                     // Define the text of the forecast.
@@ -569,7 +596,6 @@ public class SunshineSyncAdapter extends AbstractThreadedSyncAdapter implements
                     editor.putLong(lastNotificationKey, System.currentTimeMillis());
                     editor.commit();
                 }
-                cursor.close();
             }
         }
     }
@@ -648,7 +674,21 @@ public class SunshineSyncAdapter extends AbstractThreadedSyncAdapter implements
      * @param context The context used to access the account service
      */
     public static void syncImmediately(Context context) {
+        syncImmediately(context, new Bundle());
+    }
+
+    /**
+     * Helper method to have the sync adapter sync immediately on behalf of a wearable that asked
+     * for the weather, making sure it receives it even if nothing changed.
+     * @param context The context used to access the account service
+     */
+    public static void syncForWearUpdateRequest(Context context) {
         Bundle bundle = new Bundle();
+        bundle.putBoolean(SYNC_EXTRAS_WEAR_UPDATE_REQUEST, true);
+        syncImmediately(context, bundle);
+    }
+
+    private static void syncImmediately(Context context, Bundle bundle) {
         bundle.putBoolean(ContentResolver.SYNC_EXTRAS_EXPEDITED, true);
         bundle.putBoolean(ContentResolver.SYNC_EXTRAS_MANUAL, true);
         ContentResolver.requestSync(getSyncAccount(context),
@@ -726,6 +766,8 @@ public class SunshineSyncAdapter extends AbstractThreadedSyncAdapter implements
         SharedPreferences.Editor spe = sp.edit();
         spe.putInt(c.getString(R.string.pref_location_status_key), locationStatus);
         spe.commit();
+        // Written on the sync thread; don't wait for the main thread to update the snapshot
+        PreferencesSnapshot.refresh(c);
     }
 
 
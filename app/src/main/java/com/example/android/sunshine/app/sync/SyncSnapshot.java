@@ -0,0 +1,94 @@
+package com.example.android.sunshine.app.sync;
+
+import android.content.Context;
+import android.content.Intent;
+
+import com.example.android.sunshine.app.Utility;
+
+/**
+ * What a sync just wrote, as handed to everything that shows it: today's weather, and the
+ * forecast encoded for wearables. It is taken from the parsed response, so none of them needs to
+ * query the provider again for it.
+ *
+ * Widgets and Muzei run in their own components, so the snapshot travels to them as intent
+ * extras; without the extras, or when the location has changed since, they query as before.
+ */
+public class SyncSnapshot {
+
+    private static final String EXTRA_LOCATION = "snapshot_location";
+    private static final String EXTRA_DATE = "snapshot_date";
+    private static final String EXTRA_WEATHER_ID = "snapshot_weather_id";
+    private static final String EXTRA_HIGH = "snapshot_high";
+    private static final String EXTRA_LOW = "snapshot_low";
+    private static final String EXTRA_DESCRIPTION = "snapshot_description";
+
+    public final String locationSetting;
+    /** Normalized date of today's forecast, as in the weather URIs */
+    public final long date;
+    public final int weatherId;
+    public final double high;
+    public final double low;
+    public final String description;
+
+    private final byte[] mWearPayload;
+    private final long mWearFingerprint;
+
+    SyncSnapshot(String locationSetting, long date, int weatherId, double high, double low,
+                 String description, byte[] wearPayload, long wearFingerprint) {
+        this.locationSetting = locationSetting;
+        this.date = date;
+        this.weatherId = weatherId;
+        this.high = high;
+        this.low = low;
+        this.description = description;
+        mWearPayload = wearPayload;
+        mWearFingerprint = wearFingerprint;
+    }
+
+    /**
+     * @return the whole forecast, encoded with the WeatherPayloadCodec
+     */
+    byte[] getWearPayload() {
+        return mWearPayload.clone();
+    }
+
+    long getWearFingerprint() {
+        return mWearFingerprint;
+    }
+
+    /**
+     * @return whether this is the weather of the location the user currently wants
+     */
+    public boolean isForPreferredLocation(Context context) {
+        return locationSetting.equals(Utility.getPreferredLocation(context));
+    }
+
+    /**
+     * Adds today's weather to {@code intent}. The wear payload stays in this process.
+     */
+    Intent putExtras(Intent intent) {
+        return intent.putExtra(EXTRA_LOCATION, locationSetting)
+                .putExtra(EXTRA_DATE, date)
+                .putExtra(EXTRA_WEATHER_ID, weatherId)
+                .putExtra(EXTRA_HIGH, high)
+                .putExtra(EXTRA_LOW, low)
+                .putExtra(EXTRA_DESCRIPTION, description);
+    }
+
+    /**
+     * @return the snapshot {@link #putExtras} added to {@code intent}, without its wear payload,
+     * or null if it has none
+     */
+    public static SyncSnapshot fromExtras(Intent intent) {
+        if (intent == null || !intent.hasExtra(EXTRA_LOCATION)) {
+            return null;
+        }
+        return new SyncSnapshot(intent.getStringExtra(EXTRA_LOCATION),
+                intent.getLongExtra(EXTRA_DATE, 0),
+                intent.getIntExtra(EXTRA_WEATHER_ID, 0),
+                intent.getDoubleExtra(EXTRA_HIGH, 0),
+                intent.getDoubleExtra(EXTRA_LOW, 0),
+                intent.getStringExtra(EXTRA_DESCRIPTION),
+                new byte[0], 0);
+    }
+}
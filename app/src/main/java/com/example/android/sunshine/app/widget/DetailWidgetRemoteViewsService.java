@@ -7,18 +7,19 @@ import android.graphics.Bitmap;
 import android.net.Uri;
 import android.os.Binder;
 import android.os.Build;
+import android.os.Parcel;
 import android.util.Log;
 import android.widget.AdapterView;
 import android.widget.RemoteViews;
 import android.widget.RemoteViewsService;
 
-import com.bumptech.glide.Glide;
-import com.bumptech.glide.request.target.Target;
+import com.example.android.sunshine.app.BuildConfig;
 import com.example.android.sunshine.app.R;
 import com.example.android.sunshine.app.Utility;
 import com.example.android.sunshine.app.data.WeatherContract;
 
-import java.util.concurrent.ExecutionException;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * RemoteViewsService controlling the data being shown in the scrollable weather detail widget
@@ -42,11 +43,30 @@ public class DetailWidgetRemoteViewsService extends RemoteViewsService {
     static final int INDEX_WEATHER_MAX_TEMP = 4;
     static final int INDEX_WEATHER_MIN_TEMP = 5;
 
+    /**
+     * @return the number of bytes {@code views} takes across Binder
+     */
+    static int getParcelSize(RemoteViews views) {
+        Parcel parcel = Parcel.obtain();
+        try {
+            views.writeToParcel(parcel, 0);
+            return parcel.dataSize();
+        } finally {
+            parcel.recycle();
+        }
+    }
+
     @Override
     public RemoteViewsFactory onGetViewFactory(Intent intent) {
         return new RemoteViewsFactory() {
             private Cursor data = null;
 
+            // Sizes of the rows sent to the widget host since the data set last changed, measured
+            // in debug builds
+            private int mRowCount;
+            private int mMaxRowBytes;
+            private int mTotalRowBytes;
+
             @Override
             public void onCreate() {
                 // Nothing to do
@@ -71,6 +91,32 @@ public class DetailWidgetRemoteViewsService extends RemoteViewsService {
                         null,
                         WeatherContract.WeatherEntry.COLUMN_DATE + " ASC");
                 Binder.restoreCallingIdentity(identityToken);
+
+                if (mRowCount > 0) {
+                    Log.d(LOG_TAG, "Previous data set: " + mRowCount + " rows, largest "
+                            + mMaxRowBytes + " bytes, " + mTotalRowBytes + " bytes in all");
+                }
+                mRowCount = 0;
+                mMaxRowBytes = 0;
+                mTotalRowBytes = 0;
+
+                // Load each image the rows show once, here, so that getViewAt only looks it up
+                if (data != null
+                        && !Utility.usingLocalGraphics(DetailWidgetRemoteViewsService.this)) {
+                    Set<String> artUrls = new HashSet<String>();
+                    while (data.moveToNext()) {
+                        artUrls.add(Utility.getArtUrlForWeatherCondition(
+                                DetailWidgetRemoteViewsService.this,
+                                data.getInt(INDEX_WEATHER_CONDITION_ID)));
+                    }
+                    artUrls.remove(null);
+                    WidgetArtCache.prefetch(DetailWidgetRemoteViewsService.this, artUrls,
+                            getIconSize());
+                }
+            }
+
+            private int getIconSize() {
+                return getResources().getDimensionPixelSize(R.dimen.list_icon);
             }
 
             @Override
@@ -100,14 +146,9 @@ public class DetailWidgetRemoteViewsService extends RemoteViewsService {
                 if ( !Utility.usingLocalGraphics(DetailWidgetRemoteViewsService.this) ) {
                     String weatherArtResourceUrl = Utility.getArtUrlForWeatherCondition(
                             DetailWidgetRemoteViewsService.this, weatherId);
-                    try {
-                        weatherArtImage = Glide.with(DetailWidgetRemoteViewsService.this)
-                                .load(weatherArtResourceUrl)
-                                .asBitmap()
-                                .error(weatherArtResourceId)
-                                .into(Target.SIZE_ORIGINAL, Target.SIZE_ORIGINAL).get();
-                    } catch (InterruptedException | ExecutionException e) {
-                        Log.e(LOG_TAG, "Error retrieving large icon from " + weatherArtResourceUrl, e);
+                    // Prefetched in onDataSetChanged; falls back to the icon if that failed
+                    if (weatherArtResourceUrl != null) {
+                        weatherArtImage = WidgetArtCache.get(weatherArtResourceUrl, getIconSize());
                     }
                 }
                 String description = data.getString(INDEX_WEATHER_DESC);
@@ -141,6 +182,14 @@ public class DetailWidgetRemoteViewsService extends RemoteViewsService {
                         dateInMillis);
                 fillInIntent.setData(weatherUri);
                 views.setOnClickFillInIntent(R.id.widget_list_item, fillInIntent);
+
+                // Marshalling the row again costs about as much as sending it, so debug builds only
+                if (BuildConfig.DEBUG) {
+                    int rowBytes = getParcelSize(views);
+                    mRowCount++;
+                    mMaxRowBytes = Math.max(mMaxRowBytes, rowBytes);
+                    mTotalRowBytes += rowBytes;
+                }
                 return views;
             }
 
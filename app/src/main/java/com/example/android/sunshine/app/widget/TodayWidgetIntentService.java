@@ -26,6 +26,8 @@ import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
 import android.util.DisplayMetrics;
+import android.util.Log;
+import android.util.SparseArray;
 import android.util.TypedValue;
 import android.widget.RemoteViews;
 
@@ -33,11 +35,21 @@ import com.example.android.sunshine.app.MainActivity;
 import com.example.android.sunshine.app.R;
 import com.example.android.sunshine.app.Utility;
 import com.example.android.sunshine.app.data.WeatherContract;
+import com.example.android.sunshine.app.sync.SyncSnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
- * IntentService which handles updating all Today widgets with the latest data
+ * IntentService which handles updating all Today widgets with the latest data. All widgets show
+ * the same data, so each layout is rendered once per update and applied to all of its widgets,
+ * and widgets that already show the data are left alone.
  */
 public class TodayWidgetIntentService extends IntentService {
+    private static final String LOG_TAG = TodayWidgetIntentService.class.getSimpleName();
+
+    static final WidgetUpdateTracker sTracker = new WidgetUpdateTracker();
+
     private static final String[] FORECAST_COLUMNS = {
             WeatherContract.WeatherEntry.COLUMN_WEATHER_ID,
             WeatherContract.WeatherEntry.COLUMN_SHORT_DESC,
@@ -60,46 +72,94 @@ public class TodayWidgetIntentService extends IntentService {
         AppWidgetManager appWidgetManager = AppWidgetManager.getInstance(this);
         int[] appWidgetIds = appWidgetManager.getAppWidgetIds(new ComponentName(this,
                 TodayWidgetProvider.class));
-
-        // Get today's data from the ContentProvider
-        String location = Utility.getPreferredLocation(this);
-        Uri weatherForLocationUri = WeatherContract.WeatherEntry.buildWeatherLocationWithStartDate(
-                location, System.currentTimeMillis());
-        Cursor data = getContentResolver().query(weatherForLocationUri, FORECAST_COLUMNS, null,
-                null, WeatherContract.WeatherEntry.COLUMN_DATE + " ASC");
-        if (data == null) {
+        if (appWidgetIds.length == 0) {
             return;
         }
-        if (!data.moveToFirst()) {
+
+        int weatherId;
+        String description;
+        double maxTemp;
+        double minTemp;
+        SyncSnapshot snapshot = SyncSnapshot.fromExtras(intent);
+        if (snapshot != null && snapshot.isForPreferredLocation(this)) {
+            // Today's data as the sync just wrote it
+            weatherId = snapshot.weatherId;
+            description = snapshot.description;
+            maxTemp = snapshot.high;
+            minTemp = snapshot.low;
+        } else {
+            // Get today's data from the ContentProvider
+            String location = Utility.getPreferredLocation(this);
+            Uri weatherForLocationUri = WeatherContract.WeatherEntry
+                    .buildWeatherLocationWithStartDate(location, System.currentTimeMillis());
+            Cursor data = getContentResolver().query(weatherForLocationUri, FORECAST_COLUMNS,
+                    null, null, WeatherContract.WeatherEntry.COLUMN_DATE + " ASC");
+            if (data == null) {
+                return;
+            }
+            if (!data.moveToFirst()) {
+                data.close();
+                return;
+            }
+
+            // Extract the weather data from the Cursor
+            weatherId = data.getInt(INDEX_WEATHER_ID);
+            description = data.getString(INDEX_SHORT_DESC);
+            maxTemp = data.getDouble(INDEX_MAX_TEMP);
+            minTemp = data.getDouble(INDEX_MIN_TEMP);
             data.close();
-            return;
         }
-
-        // Extract the weather data from the Cursor
-        int weatherId = data.getInt(INDEX_WEATHER_ID);
         int weatherArtResourceId = Utility.getArtResourceForWeatherCondition(weatherId);
-        String description = data.getString(INDEX_SHORT_DESC);
-        double maxTemp = data.getDouble(INDEX_MAX_TEMP);
-        double minTemp = data.getDouble(INDEX_MIN_TEMP);
         String formattedMaxTemperature = Utility.formatTemperature(this, maxTemp);
         String formattedMinTemperature = Utility.formatTemperature(this, minTemp);
-        data.close();
 
-        // Perform this loop procedure for each Today widget
+        // Everything the widgets show, so that widgets already showing it can be skipped
+        String dataVersion = weatherArtResourceId + "|" + description + "|"
+                + formattedMaxTemperature + "|" + formattedMinTemperature;
+
+        // Group the widgets that need an update by layout, reading the options only of the
+        // widgets whose layout isn't known yet
+        int defaultWidth = getResources().getDimensionPixelSize(R.dimen.widget_today_default_width);
+        int largeWidth = getResources().getDimensionPixelSize(R.dimen.widget_today_large_width);
+        SparseArray<List<Integer>> widgetsByLayout = new SparseArray<List<Integer>>();
         for (int appWidgetId : appWidgetIds) {
-            // Find the correct layout based on the widget's width
-            int widgetWidth = getWidgetWidth(appWidgetManager, appWidgetId);
-            int defaultWidth = getResources().getDimensionPixelSize(R.dimen.widget_today_default_width);
-            int largeWidth = getResources().getDimensionPixelSize(R.dimen.widget_today_large_width);
-            int layoutId;
-            if (widgetWidth >= largeWidth) {
-                layoutId = R.layout.widget_today_large;
-            } else if (widgetWidth >= defaultWidth) {
-                layoutId = R.layout.widget_today;
-            } else {
-                layoutId = R.layout.widget_today_small;
+            int optionsGeneration = sTracker.getOptionsGeneration(appWidgetId);
+            int layoutId = sTracker.getLayout(appWidgetId);
+            if (layoutId == 0) {
+                // Find the correct layout based on the widget's width
+                int widgetWidth = getWidgetWidth(appWidgetManager, appWidgetId);
+                if (widgetWidth >= largeWidth) {
+                    layoutId = R.layout.widget_today_large;
+                } else if (widgetWidth >= defaultWidth) {
+                    layoutId = R.layout.widget_today;
+                } else {
+                    layoutId = R.layout.widget_today_small;
+                }
+                // Not kept if the widget was resized meanwhile; the next update reads again
+                sTracker.setLayout(appWidgetId, layoutId, optionsGeneration);
+            }
+            if (sTracker.isCurrent(appWidgetId, dataVersion)) {
+                continue;
+            }
+            List<Integer> widgets = widgetsByLayout.get(layoutId);
+            if (widgets == null) {
+                widgets = new ArrayList<Integer>();
+                widgetsByLayout.put(layoutId, widgets);
             }
-            RemoteViews views = new RemoteViews(getPackageName(), layoutId);
+            widgets.add(appWidgetId);
+        }
+        if (widgetsByLayout.size() == 0) {
+            Log.d(LOG_TAG, "All widgets are current. " + sTracker.dumpStats());
+            return;
+        }
+
+        // Create an Intent to launch MainActivity
+        Intent launchIntent = new Intent(this, MainActivity.class);
+        PendingIntent pendingIntent = PendingIntent.getActivity(this, 0, launchIntent, 0);
+
+        // Render each layout once, for all of its widgets
+        for (int i = 0; i < widgetsByLayout.size(); i++) {
+            RemoteViews views = new RemoteViews(getPackageName(), widgetsByLayout.keyAt(i));
 
             // Add the data to the RemoteViews
             views.setImageViewResource(R.id.widget_icon, weatherArtResourceId);
@@ -110,15 +170,18 @@ public class TodayWidgetIntentService extends IntentService {
             views.setTextViewText(R.id.widget_description, description);
             views.setTextViewText(R.id.widget_high_temperature, formattedMaxTemperature);
             views.setTextViewText(R.id.widget_low_temperature, formattedMinTemperature);
-
-            // Create an Intent to launch MainActivity
-            Intent launchIntent = new Intent(this, MainActivity.class);
-            PendingIntent pendingIntent = PendingIntent.getActivity(this, 0, launchIntent, 0);
             views.setOnClickPendingIntent(R.id.widget, pendingIntent);
 
-            // Tell the AppWidgetManager to perform an update on the current app widget
-            appWidgetManager.updateAppWidget(appWidgetId, views);
+            List<Integer> widgets = widgetsByLayout.valueAt(i);
+            int[] widgetIds = new int[widgets.size()];
+            for (int j = 0; j < widgetIds.length; j++) {
+                widgetIds[j] = widgets.get(j);
+            }
+            // Tell the AppWidgetManager to perform an update on these app widgets
+            appWidgetManager.updateAppWidget(widgetIds, views);
+            sTracker.onUpdated(widgetIds, dataVersion);
         }
+        Log.d(LOG_TAG, "Widgets updated. " + sTracker.dumpStats());
     }
 
     private int getWidgetWidth(AppWidgetManager appWidgetManager, int appWidgetId) {
@@ -0,0 +1,87 @@
+package com.example.android.sunshine.app.widget;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.support.v4.util.LruCache;
+import android.util.Log;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
+import com.bumptech.glide.request.FutureTarget;
+import com.example.android.sunshine.app.ArtCacheStats;
+
+import java.util.Collection;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Art pack images for the detail widget, decoded at the size of the widget icon. Each image is
+ * loaded once per size, however many rows show it, and rows only look it up. Every bitmap put in
+ * a RemoteViews is copied to the widget host, so they are kept small.
+ *
+ * The cache is bounded in bytes; a pack has few enough images that it normally holds all of them.
+ */
+class WidgetArtCache {
+    private static final String LOG_TAG = WidgetArtCache.class.getSimpleName();
+
+    static final int MAX_BYTES = 2 * 1024 * 1024;
+
+    private static final LruCache<String, Bitmap> sCache = new LruCache<String, Bitmap>(MAX_BYTES) {
+        @Override
+        protected int sizeOf(String key, Bitmap bitmap) {
+            return bitmap.getRowBytes() * bitmap.getHeight();
+        }
+    };
+
+    private WidgetArtCache() {
+    }
+
+    private static String getKey(String url, int size) {
+        return size + "/" + url;
+    }
+
+    /**
+     * @return the image at {@code url} decoded to fit {@code size}, or null if it isn't cached
+     */
+    static Bitmap get(String url, int size) {
+        return sCache.get(getKey(url, size));
+    }
+
+    static void put(String url, int size, Bitmap bitmap) {
+        sCache.put(getKey(url, size), bitmap);
+    }
+
+    /**
+     * Loads each of {@code urls} that isn't cached at {@code size} yet. Blocks, so it must not be
+     * called on the main thread.
+     */
+    static void prefetch(Context context, Collection<String> urls, int size) {
+        for (String url : urls) {
+            if (get(url, size) != null) {
+                continue;
+            }
+            FutureTarget<Bitmap> target = Glide.with(context)
+                    .load(url)
+                    .asBitmap()
+                    .diskCacheStrategy(DiskCacheStrategy.ALL)
+                    .listener(ArtCacheStats.<Bitmap>listener())
+                    .fitCenter()
+                    .into(size, size);
+            try {
+                // Glide may reuse its bitmap once the target is cleared, so keep a copy. Some
+                // decodes, e.g. of GIFs, have no config to copy with
+                Bitmap bitmap = target.get();
+                Bitmap.Config config = bitmap.getConfig() != null
+                        ? bitmap.getConfig() : Bitmap.Config.ARGB_8888;
+                put(url, size, bitmap.copy(config, false));
+            } catch (InterruptedException | ExecutionException e) {
+                Log.e(LOG_TAG, "Error retrieving widget icon from " + url, e);
+            } finally {
+                target.clear();
+            }
+        }
+    }
+
+    static void clear() {
+        sCache.evictAll();
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.android.sunshine.app.widget;
+
+import android.util.SparseArray;
+import android.util.SparseIntArray;
+
+/**
+ * Remembers what each widget shows: its layout, which only changes with its options, and the
+ * version of the data it was last updated with. This lets an update skip the widgets that are
+ * already current, and the options lookup for widgets whose size is known.
+ *
+ * A layout is computed from options read on the service's thread while the provider may reset
+ * them on the main thread, so each reset bumps the widget's options generation, and a layout
+ * computed from options read before it is not kept.
+ *
+ * Nothing is kept across processes; after a restart every widget is updated once again.
+ */
+class WidgetUpdateTracker {
+
+    /* Layout of each widget, or 0 when its options must be read */
+    private final SparseIntArray mLayouts = new SparseIntArray();
+    /* Data version each widget was last updated with */
+    private final SparseArray<String> mVersions = new SparseArray<String>();
+    /* Count of the option changes of each widget */
+    private final SparseIntArray mGenerations = new SparseIntArray();
+
+    private int mRenderCount;
+    private int mUpdateCount;
+    private int mSkipCount;
+
+    /**
+     * @return the layout of {@code appWidgetId}, or 0 if it isn't known
+     */
+    synchronized int getLayout(int appWidgetId) {
+        return mLayouts.get(appWidgetId, 0);
+    }
+
+    /**
+     * @return the generation of the options of {@code appWidgetId}; read it before the options
+     * a layout is computed from
+     */
+    synchronized int getOptionsGeneration(int appWidgetId) {
+        return mGenerations.get(appWidgetId, 0);
+    }
+
+    /**
+     * Sets the layout of {@code appWidgetId}, unless its options changed since
+     * {@code optionsGeneration}. A widget whose layout changes is no longer current.
+     *
+     * @return whether the layout was kept
+     */
+    synchronized boolean setLayout(int appWidgetId, int layoutId, int optionsGeneration) {
+        if (optionsGeneration != mGenerations.get(appWidgetId, 0)) {
+            return false;
+        }
+        if (mLayouts.get(appWidgetId, 0) != layoutId) {
+            mLayouts.put(appWidgetId, layoutId);
+            mVersions.remove(appWidgetId);
+        }
+        return true;
+    }
+
+    /**
+     * @return whether {@code appWidgetId} already shows {@code dataVersion} in its layout; counts
+     * it as skipped if so
+     */
+    synchronized boolean isCurrent(int appWidgetId, String dataVersion) {
+        if (dataVersion.equals(mVersions.get(appWidgetId))) {
+            mSkipCount++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Records that {@code appWidgetIds} were updated with the same views, rendered once.
+     */
+    synchronized void onUpdated(int[] appWidgetIds, String dataVersion) {
+        mRenderCount++;
+        mUpdateCount += appWidgetIds.length;
+        for (int appWidgetId : appWidgetIds) {
+            mVersions.put(appWidgetId, dataVersion);
+        }
+    }
+
+    /**
+     * Forgets the layout of {@code appWidgetId}, e.g. after it was resized.
+     */
+    synchronized void onOptionsChanged(int appWidgetId) {
+        mGenerations.put(appWidgetId, mGenerations.get(appWidgetId, 0) + 1);
+        mLayouts.delete(appWidgetId);
+        mVersions.remove(appWidgetId);
+    }
+
+    synchronized void onDeleted(int[] appWidgetIds) {
+        for (int appWidgetId : appWidgetIds) {
+            mGenerations.delete(appWidgetId);
+            mLayouts.delete(appWidgetId);
+            mVersions.remove(appWidgetId);
+        }
+    }
+
+    synchronized int getRenderCount() {
+        return mRenderCount;
+    }
+
+    synchronized int getUpdateCount() {
+        return mUpdateCount;
+    }
+
+    synchronized int getSkipCount() {
+        return mSkipCount;
+    }
+
+    synchronized String dumpStats() {
+        return "rendered=" + mRenderCount + " updated=" + mUpdateCount + " skipped=" + mSkipCount;
+    }
+}
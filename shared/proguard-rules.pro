@@ -0,0 +1,3 @@
+# Add project specific ProGuard rules here.
+# By default, the flags in this file are appended to flags specified
+# in the Android SDK tools proguard-android.txt.
@@ -0,0 +1,27 @@
+package com.example.android.sunshine.app.wear;
+
+/**
+ * Message paths and capabilities shared by the phone app and the watch face.
+ */
+public class WearContract {
+
+    /**
+     * Path of the messages carrying a {@link WeatherPayloadCodec encoded} forecast to the watch.
+     */
+    public static final String PATH_WEATHER = "/message_path";
+
+    /**
+     * Path of the messages the watch sends to ask the phone for fresh weather.
+     */
+    public static final String PATH_UPDATE_REQUEST = "/update_path";
+
+    /**
+     * Capability advertised by the watch face, see res/values/wear.xml in the watchface module.
+     */
+    public static final String CAPABILITY_WATCH_FACE = "sunshine_watch_face";
+
+    /**
+     * Capability advertised by the phone app, see res/values/wear.xml in the app module.
+     */
+    public static final String CAPABILITY_PHONE_APP = "sunshine_phone_app";
+}
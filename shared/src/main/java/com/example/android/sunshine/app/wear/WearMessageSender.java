@@ -0,0 +1,374 @@
+package com.example.android.sunshine.app.wear;
+
+import android.os.Bundle;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.google.android.gms.common.api.GoogleApiClient;
+import com.google.android.gms.wearable.CapabilityApi;
+import com.google.android.gms.wearable.CapabilityInfo;
+import com.google.android.gms.wearable.MessageApi;
+import com.google.android.gms.wearable.Node;
+import com.google.android.gms.wearable.NodeApi;
+import com.google.android.gms.wearable.Wearable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivers messages to the nodes advertising a capability over the Wearable Data Layer.
+ *
+ * The set of reachable nodes is looked up once and then kept current by node and capability
+ * listeners, so sending does not go through node discovery every time. All sends run one after
+ * the other on a single background thread with a bounded queue; when the queue is full the
+ * oldest pending message is dropped, since a newer one supersedes it anyway.
+ *
+ * {@link #sendIfChanged} remembers a fingerprint of the last message each node acknowledged on a
+ * path, and when it was delivered, and skips nodes that already have the same content, unless
+ * they have had it for long enough that it needs refreshing.
+ */
+public class WearMessageSender implements GoogleApiClient.ConnectionCallbacks,
+        NodeApi.NodeListener, CapabilityApi.CapabilityListener {
+
+    private static final String LOG_TAG = WearMessageSender.class.getSimpleName();
+
+    private static final int QUEUE_CAPACITY = 8;
+    private static final long CONNECT_TIMEOUT_SECONDS = 10;
+
+    private final GoogleApiClient mGoogleApiClient;
+    private final String mCapability;
+    private final ThreadPoolExecutor mExecutor;
+
+    private final Map<String, Node> mNodes = new ConcurrentHashMap<String, Node>();
+    private volatile boolean mNodesKnown;
+    private volatile boolean mListening;
+
+    /* The last message acknowledged by each node, keyed by node id and path */
+    private final Map<String, Acknowledgement> mAcknowledged =
+            new ConcurrentHashMap<String, Acknowledgement>();
+
+    private final Map<String, NodeStats> mStats = new HashMap<String, NodeStats>();
+    private int mDroppedCount;
+    private int mSentCount;
+    private int mSuppressedCount;
+
+    private static class Acknowledgement {
+        final long fingerprint;
+        /* Elapsed realtime of the delivery */
+        final long deliveredAt;
+
+        Acknowledgement(long fingerprint, long deliveredAt) {
+            this.fingerprint = fingerprint;
+            this.deliveredAt = deliveredAt;
+        }
+    }
+
+    /**
+     * Delivery counters for a single node.
+     */
+    public static class NodeStats {
+        public String displayName;
+        public int deliveredCount;
+        public int failedCount;
+        public long lastLatencyMs;
+        public long maxLatencyMs;
+        public long totalLatencyMs;
+
+        @Override
+        public String toString() {
+            int attempts = deliveredCount + failedCount;
+            return displayName + ": delivered=" + deliveredCount + " failed=" + failedCount
+                    + " lastLatencyMs=" + lastLatencyMs + " maxLatencyMs=" + maxLatencyMs
+                    + " avgLatencyMs=" + (attempts == 0 ? 0 : totalLatencyMs / attempts);
+        }
+    }
+
+    /**
+     * @param googleApiClient a client with the {@link Wearable#API}. It does not need to be
+     *                        connected yet; the sender starts listening once it is.
+     * @param capability the capability the receiving nodes advertise, see {@link WearContract}
+     */
+    public WearMessageSender(GoogleApiClient googleApiClient, String capability) {
+        mGoogleApiClient = googleApiClient;
+        mCapability = capability;
+        mExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(QUEUE_CAPACITY),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        return new Thread(runnable, LOG_TAG);
+                    }
+                },
+                new RejectedExecutionHandler() {
+                    @Override
+                    public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+                        if (executor.isShutdown()) {
+                            return;
+                        }
+                        synchronized (mStats) {
+                            mDroppedCount++;
+                        }
+                        executor.getQueue().poll();
+                        executor.execute(runnable);
+                    }
+                });
+        // Registering on a client that is already connected calls onConnected right away
+        mGoogleApiClient.registerConnectionCallbacks(this);
+    }
+
+    /**
+     * Queues {@code data} for delivery to every reachable node on {@code path}.
+     */
+    public void send(String path, byte[] data) {
+        enqueue(path, data, false, 0, 0);
+    }
+
+    /**
+     * Like {@link #send}, but skips the nodes whose last acknowledged message on {@code path}
+     * had the same {@code fingerprint}, unless it was delivered {@code resendAfterMs} or longer
+     * ago. A node that keeps content only for so long is then sent it again just before it
+     * would expire, and not on every unchanged update.
+     */
+    public void sendIfChanged(String path, byte[] data, long fingerprint, long resendAfterMs) {
+        enqueue(path, data, true, fingerprint, resendAfterMs);
+    }
+
+    /**
+     * Forgets what every node acknowledged, so the next {@link #sendIfChanged} reaches all of
+     * them. Use this when a node asks for data it may have lost.
+     */
+    public void forgetAcknowledged() {
+        mAcknowledged.clear();
+    }
+
+    private void enqueue(final String path, final byte[] data, final boolean onlyIfChanged,
+                         final long fingerprint, final long resendAfterMs) {
+        if (mExecutor.isShutdown()) {
+            return;
+        }
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                if (!ensureConnected()) {
+                    Log.w(LOG_TAG, "Not connected, dropping message to " + path);
+                    return;
+                }
+                if (!mNodesKnown) {
+                    refreshNodes();
+                }
+                for (Node node : mNodes.values()) {
+                    String key = node.getId() + path;
+                    if (onlyIfChanged) {
+                        Acknowledgement acknowledged = mAcknowledged.get(key);
+                        if (acknowledged != null && acknowledged.fingerprint == fingerprint
+                                && SystemClock.elapsedRealtime() - acknowledged.deliveredAt
+                                < resendAfterMs) {
+                            synchronized (mStats) {
+                                mSuppressedCount++;
+                            }
+                            continue;
+                        }
+                    }
+                    if (sendToNode(node, path, data) && onlyIfChanged) {
+                        mAcknowledged.put(key, new Acknowledgement(fingerprint,
+                                SystemClock.elapsedRealtime()));
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Discards the messages that are queued but not being sent yet, so that they don't connect
+     * the client again. A message that is already being sent still goes out.
+     */
+    public void cancelPending() {
+        mExecutor.getQueue().clear();
+    }
+
+    /**
+     * Stops listening for node changes and discards any pending messages. The sender cannot be
+     * used afterwards. This does not disconnect the client, which belongs to the caller.
+     */
+    public void release() {
+        mExecutor.shutdownNow();
+        mGoogleApiClient.unregisterConnectionCallbacks(this);
+        stopListening();
+    }
+
+    /**
+     * Stops listening for node changes. Call this before disconnecting the client on purpose,
+     * which unlike a lost connection does not tell the sender. The sender keeps working: the
+     * next send connects again and listening resumes once connected.
+     */
+    public void stopListening() {
+        if (mListening && mGoogleApiClient.isConnected()) {
+            Wearable.NodeApi.removeListener(mGoogleApiClient, this);
+            Wearable.CapabilityApi.removeCapabilityListener(mGoogleApiClient, this, mCapability);
+        }
+        mListening = false;
+        // Nodes may come and go while nobody is listening
+        mNodesKnown = false;
+    }
+
+    /**
+     * @return a copy of the per-node delivery counters, keyed by node id
+     */
+    public Map<String, NodeStats> getStats() {
+        Map<String, NodeStats> copy = new HashMap<String, NodeStats>();
+        synchronized (mStats) {
+            for (Map.Entry<String, NodeStats> entry : mStats.entrySet()) {
+                NodeStats stats = new NodeStats();
+                NodeStats source = entry.getValue();
+                stats.displayName = source.displayName;
+                stats.deliveredCount = source.deliveredCount;
+                stats.failedCount = source.failedCount;
+                stats.lastLatencyMs = source.lastLatencyMs;
+                stats.maxLatencyMs = source.maxLatencyMs;
+                stats.totalLatencyMs = source.totalLatencyMs;
+                copy.put(entry.getKey(), stats);
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * @return the number of messages dropped because the queue was full
+     */
+    public int getDroppedCount() {
+        synchronized (mStats) {
+            return mDroppedCount;
+        }
+    }
+
+    /**
+     * @return the number of messages handed to the Data Layer, one per node
+     */
+    public int getSentCount() {
+        synchronized (mStats) {
+            return mSentCount;
+        }
+    }
+
+    /**
+     * @return the number of messages not sent because the node already had the same content
+     */
+    public int getSuppressedCount() {
+        synchronized (mStats) {
+            return mSuppressedCount;
+        }
+    }
+
+    public String dumpStats() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("sent=").append(getSentCount())
+                .append(" suppressed=").append(getSuppressedCount())
+                .append(" dropped=").append(getDroppedCount());
+        for (NodeStats stats : getStats().values()) {
+            builder.append('\n').append(stats);
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public void onConnected(Bundle bundle) {
+        if (!mListening && !mExecutor.isShutdown()) {
+            mListening = true;
+            Wearable.NodeApi.addListener(mGoogleApiClient, this);
+            Wearable.CapabilityApi.addCapabilityListener(mGoogleApiClient, this, mCapability);
+        }
+    }
+
+    @Override
+    public void onConnectionSuspended(int cause) {
+        // Listeners are lost with the connection, and so may be node changes in the meantime
+        mListening = false;
+        mNodesKnown = false;
+    }
+
+    @Override
+    public void onPeerConnected(Node node) {
+        // Whether the new peer has our capability is only known after asking again
+        mNodesKnown = false;
+    }
+
+    @Override
+    public void onPeerDisconnected(Node node) {
+        mNodes.remove(node.getId());
+    }
+
+    @Override
+    public void onCapabilityChanged(CapabilityInfo capabilityInfo) {
+        setNodes(capabilityInfo);
+        mNodesKnown = true;
+    }
+
+    private boolean ensureConnected() {
+        if (mGoogleApiClient.isConnected()) {
+            return true;
+        }
+        return mGoogleApiClient.blockingConnect(CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .isSuccess();
+    }
+
+    private void refreshNodes() {
+        CapabilityApi.GetCapabilityResult result = Wearable.CapabilityApi.getCapability(
+                mGoogleApiClient, mCapability, CapabilityApi.FILTER_REACHABLE).await();
+        if (result.getStatus().isSuccess()) {
+            setNodes(result.getCapability());
+            mNodesKnown = true;
+        } else {
+            Log.w(LOG_TAG, "Failed to look up nodes for " + mCapability);
+        }
+    }
+
+    private void setNodes(CapabilityInfo capabilityInfo) {
+        mNodes.clear();
+        for (Node node : capabilityInfo.getNodes()) {
+            mNodes.put(node.getId(), node);
+        }
+    }
+
+    private boolean sendToNode(Node node, String path, byte[] data) {
+        long start = SystemClock.elapsedRealtime();
+        MessageApi.SendMessageResult result = Wearable.MessageApi.sendMessage(
+                mGoogleApiClient, node.getId(), path, data).await();
+        long latencyMs = SystemClock.elapsedRealtime() - start;
+        boolean delivered = result.getStatus().isSuccess();
+
+        synchronized (mStats) {
+            mSentCount++;
+            NodeStats stats = mStats.get(node.getId());
+            if (stats == null) {
+                stats = new NodeStats();
+                mStats.put(node.getId(), stats);
+            }
+            stats.displayName = node.getDisplayName();
+            if (delivered) {
+                stats.deliveredCount++;
+            } else {
+                stats.failedCount++;
+            }
+            stats.lastLatencyMs = latencyMs;
+            stats.maxLatencyMs = Math.max(stats.maxLatencyMs, latencyMs);
+            stats.totalLatencyMs += latencyMs;
+        }
+
+        if (delivered) {
+            Log.v(LOG_TAG, path + " (" + data.length + " bytes) sent to "
+                    + node.getDisplayName() + " in " + latencyMs + "ms");
+        } else {
+            Log.w(LOG_TAG, "Failed to send " + path + " to " + node.getDisplayName() + ": "
+                    + result.getStatus());
+        }
+        return delivered;
+    }
+}
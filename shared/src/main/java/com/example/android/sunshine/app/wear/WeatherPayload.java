@@ -0,0 +1,164 @@
+package com.example.android.sunshine.app.wear;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Weather data exchanged between the phone and the watch. Temperatures are kept raw, in tenths
+ * of a degree Celsius, together with the unit the user prefers, so the watch can format them
+ * itself. Instances are mutable and meant to be reused: {@link WeatherPayloadCodec#decode}
+ * fills an existing payload without allocating.
+ */
+public class WeatherPayload {
+
+    /**
+     * Maximum number of forecast days, after today, that a payload can carry.
+     */
+    public static final int MAX_DAYS = 14;
+
+    /**
+     * Age after which the watch shows a forecast as out of date. The phone syncs every three
+     * hours, so this allows for one missed sync.
+     */
+    public static final long STALE_AFTER_MS = 6 * 60 * 60 * 1000;
+
+    boolean mMetric;
+    long mTimestamp;
+    int mHigh;
+    int mLow;
+    int mWeatherId;
+
+    int mDayCount;
+    final int[] mDayHigh = new int[MAX_DAYS];
+    final int[] mDayLow = new int[MAX_DAYS];
+    final int[] mDayWeatherId = new int[MAX_DAYS];
+
+    /**
+     * Converts a temperature in degrees Celsius to the tenths used on the wire.
+     */
+    public static int toTenths(double celsius) {
+        return (int) Math.round(celsius * 10);
+    }
+
+    /**
+     * Converts tenths of a degree Celsius to whole degrees in the requested unit, rounded to the
+     * nearest degree.
+     */
+    public static int toDisplayDegrees(int tenthsCelsius, boolean metric) {
+        float tenths = metric ? tenthsCelsius : tenthsCelsius * 1.8f + 320;
+        return Math.round(tenths / 10f);
+    }
+
+    public void setToday(double high, double low, int weatherId) {
+        mHigh = toTenths(high);
+        mLow = toTenths(low);
+        mWeatherId = weatherId;
+    }
+
+    /**
+     * Appends a forecast day after today. Days beyond {@link #MAX_DAYS} are dropped.
+     */
+    public void addDay(double high, double low, int weatherId) {
+        if (mDayCount == MAX_DAYS) {
+            return;
+        }
+        mDayHigh[mDayCount] = toTenths(high);
+        mDayLow[mDayCount] = toTenths(low);
+        mDayWeatherId[mDayCount] = weatherId;
+        mDayCount++;
+    }
+
+    public void clearDays() {
+        mDayCount = 0;
+    }
+
+    public void setMetric(boolean metric) {
+        mMetric = metric;
+    }
+
+    public void setTimestamp(long timestamp) {
+        mTimestamp = timestamp;
+    }
+
+    public boolean isMetric() {
+        return mMetric;
+    }
+
+    public long getTimestamp() {
+        return mTimestamp;
+    }
+
+    /**
+     * @return today's high, in tenths of a degree Celsius
+     */
+    public int getHigh() {
+        return mHigh;
+    }
+
+    /**
+     * @return today's low, in tenths of a degree Celsius
+     */
+    public int getLow() {
+        return mLow;
+    }
+
+    public int getWeatherId() {
+        return mWeatherId;
+    }
+
+    public int getDayCount() {
+        return mDayCount;
+    }
+
+    public int getDayHigh(int day) {
+        return mDayHigh[day];
+    }
+
+    public int getDayLow(int day) {
+        return mDayLow[day];
+    }
+
+    public int getDayWeatherId(int day) {
+        return mDayWeatherId[day];
+    }
+
+    /**
+     * @return a hash of everything the watch displays, which leaves out the timestamp so that
+     * syncs returning the same forecast produce the same fingerprint. It is taken from a SHA-1
+     * of the encoded payload, so that unlike a simple hash, two different forecasts practically
+     * never share it.
+     */
+    public long fingerprint() {
+        byte[] data = WeatherPayloadCodec.encode(this);
+        for (int i = 0; i < WeatherPayloadCodec.TIMESTAMP_SIZE; i++) {
+            data[WeatherPayloadCodec.TIMESTAMP_OFFSET + i] = 0;
+        }
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1").digest(data);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform has SHA-1
+            throw new IllegalStateException(e);
+        }
+        long hash = 0;
+        for (int i = 0; i < 8; i++) {
+            hash = (hash << 8) | (digest[i] & 0xff);
+        }
+        return hash;
+    }
+
+    /**
+     * Copies every field of {@code other} into this payload.
+     */
+    public void set(WeatherPayload other) {
+        mMetric = other.mMetric;
+        mTimestamp = other.mTimestamp;
+        mHigh = other.mHigh;
+        mLow = other.mLow;
+        mWeatherId = other.mWeatherId;
+        mDayCount = other.mDayCount;
+        System.arraycopy(other.mDayHigh, 0, mDayHigh, 0, mDayCount);
+        System.arraycopy(other.mDayLow, 0, mDayLow, 0, mDayCount);
+        System.arraycopy(other.mDayWeatherId, 0, mDayWeatherId, 0, mDayCount);
+    }
+}
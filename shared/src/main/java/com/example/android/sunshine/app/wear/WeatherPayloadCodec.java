@@ -0,0 +1,115 @@
+package com.example.android.sunshine.app.wear;
+
+/**
+ * Fixed-layout binary encoding of a {@link WeatherPayload}. All multi-byte values are big-endian.
+ *
+ * <pre>
+ * offset  size  field
+ *      0     1  version ({@link #VERSION})
+ *      1     1  flags ({@link #FLAG_METRIC})
+ *      2     8  timestamp, milliseconds since the epoch
+ *     10     2  today's high, tenths of a degree Celsius (signed)
+ *     12     2  today's low, tenths of a degree Celsius (signed)
+ *     14     2  today's weather condition id (unsigned)
+ *     16     1  number of forecast days that follow, at most {@link WeatherPayload#MAX_DAYS}
+ *     17   6*n  high, low and condition id of each following day, laid out as above
+ * </pre>
+ */
+public final class WeatherPayloadCodec {
+
+    public static final int VERSION = 1;
+
+    public static final int FLAG_METRIC = 0x01;
+
+    static final int TIMESTAMP_OFFSET = 2;
+    static final int TIMESTAMP_SIZE = 8;
+    static final int HEADER_SIZE = 17;
+    static final int DAY_SIZE = 6;
+
+    private WeatherPayloadCodec() {
+    }
+
+    /**
+     * @return the encoded size, in bytes, of a payload carrying {@code dayCount} forecast days
+     */
+    public static int encodedSize(int dayCount) {
+        return HEADER_SIZE + dayCount * DAY_SIZE;
+    }
+
+    public static byte[] encode(WeatherPayload payload) {
+        byte[] data = new byte[encodedSize(payload.mDayCount)];
+        data[0] = VERSION;
+        data[1] = (byte) (payload.mMetric ? FLAG_METRIC : 0);
+        putLong(data, TIMESTAMP_OFFSET, payload.mTimestamp);
+        putShort(data, 10, payload.mHigh);
+        putShort(data, 12, payload.mLow);
+        putShort(data, 14, payload.mWeatherId);
+        data[16] = (byte) payload.mDayCount;
+        int offset = HEADER_SIZE;
+        for (int i = 0; i < payload.mDayCount; i++) {
+            putShort(data, offset, payload.mDayHigh[i]);
+            putShort(data, offset + 2, payload.mDayLow[i]);
+            putShort(data, offset + 4, payload.mDayWeatherId[i]);
+            offset += DAY_SIZE;
+        }
+        return data;
+    }
+
+    /**
+     * Decodes {@code data} into {@code out} without allocating. {@code out} is left untouched
+     * when the data is malformed or was written by an unknown version of the codec.
+     *
+     * @return true if {@code out} now holds the decoded payload
+     */
+    public static boolean decode(byte[] data, WeatherPayload out) {
+        if (data == null || data.length < HEADER_SIZE || data[0] != VERSION) {
+            return false;
+        }
+        int dayCount = data[16] & 0xff;
+        if (dayCount > WeatherPayload.MAX_DAYS || data.length != encodedSize(dayCount)) {
+            return false;
+        }
+        out.mMetric = (data[1] & FLAG_METRIC) != 0;
+        out.mTimestamp = getLong(data, TIMESTAMP_OFFSET);
+        out.mHigh = getSignedShort(data, 10);
+        out.mLow = getSignedShort(data, 12);
+        out.mWeatherId = getUnsignedShort(data, 14);
+        out.mDayCount = dayCount;
+        int offset = HEADER_SIZE;
+        for (int i = 0; i < dayCount; i++) {
+            out.mDayHigh[i] = getSignedShort(data, offset);
+            out.mDayLow[i] = getSignedShort(data, offset + 2);
+            out.mDayWeatherId[i] = getUnsignedShort(data, offset + 4);
+            offset += DAY_SIZE;
+        }
+        return true;
+    }
+
+    private static void putShort(byte[] data, int offset, int value) {
+        data[offset] = (byte) (value >> 8);
+        data[offset + 1] = (byte) value;
+    }
+
+    private static void putLong(byte[] data, int offset, long value) {
+        for (int i = 7; i >= 0; i--) {
+            data[offset + i] = (byte) value;
+            value >>= 8;
+        }
+    }
+
+    private static int getSignedShort(byte[] data, int offset) {
+        return (short) ((data[offset] << 8) | (data[offset + 1] & 0xff));
+    }
+
+    private static int getUnsignedShort(byte[] data, int offset) {
+        return ((data[offset] & 0xff) << 8) | (data[offset + 1] & 0xff);
+    }
+
+    private static long getLong(byte[] data, int offset) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (data[offset + i] & 0xff);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.android.sunshine.app;
+
+import android.test.AndroidTestCase;
+
+import com.example.android.sunshine.app.wear.WeatherPayload;
+
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Locale;
+
+public class TestDailyForecast extends AndroidTestCase {
+
+    private static final long SYNC_TIME = 1456790400000L + 12 * 60 * 60 * 1000;
+
+    static WeatherPayload createWeekPayload() {
+        WeatherPayload payload = new WeatherPayload();
+        payload.setMetric(true);
+        payload.setTimestamp(SYNC_TIME);
+        payload.setToday(21, -5, 804);
+        for (int i = 1; i < 7; i++) {
+            payload.addDay(21 + i, -5 + i, i % 2 == 0 ? 800 : 500);
+        }
+        return payload;
+    }
+
+    public void testEveryDayFormatted() {
+        DailyForecast forecast = DailyForecast.from(getContext(), createWeekPayload());
+        assertEquals("Error: Today and the six days after it", 7, forecast.getDayCount());
+
+        assertNull("Error: Today should not be labelled", forecast.getLabel(0));
+        assertEquals(Utilities.formatTemperature(getContext(), 210, true), forecast.getHigh(0));
+        assertEquals(Utilities.formatTemperature(getContext(), -50, true), forecast.getLow(0));
+        assertEquals(804, forecast.getWeatherId(0));
+
+        SimpleDateFormat weekdayFormat = new SimpleDateFormat("EEE", Locale.getDefault());
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(SYNC_TIME);
+        for (int day = 1; day < 7; day++) {
+            calendar.add(Calendar.DAY_OF_YEAR, 1);
+            assertEquals(weekdayFormat.format(calendar.getTime()), forecast.getLabel(day));
+            assertEquals(Utilities.formatTemperature(getContext(), (21 + day) * 10, true),
+                    forecast.getHigh(day));
+            assertEquals(Utilities.formatTemperature(getContext(), (-5 + day) * 10, true),
+                    forecast.getLow(day));
+            assertEquals(day % 2 == 0 ? 800 : 500, forecast.getWeatherId(day));
+        }
+    }
+
+    public void testTodayOnly() {
+        WeatherPayload payload = createWeekPayload();
+        payload.clearDays();
+        DailyForecast forecast = DailyForecast.from(getContext(), payload);
+        assertEquals(1, forecast.getDayCount());
+        assertNull(forecast.getLabel(0));
+    }
+
+    public void testSetForecastShowsDay() {
+        DailyForecast forecast = DailyForecast.from(getContext(), createWeekPayload());
+        RenderState state = new RenderState();
+        state.setForecast(forecast, 3);
+        assertSame(forecast.getHigh(3), state.highTemperature);
+        assertSame(forecast.getLow(3), state.lowTemperature);
+        assertEquals(forecast.getWeatherId(3), state.weatherId);
+        assertSame(forecast.getLabel(3), state.dayLabel);
+
+        state.setForecast(forecast, 0);
+        assertNull(state.dayLabel);
+        assertTrue(state.hasWeather());
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.android.sunshine.app;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.support.v4.content.LocalBroadcastManager;
+import android.test.AndroidTestCase;
+
+import java.util.HashSet;
+import java.util.Set;
+
+public class TestFaceReceivers extends AndroidTestCase {
+
+    private static final int ENGINES = 5;
+
+    /* Receivers registered with the system through this context and not yet unregistered */
+    private final Set<BroadcastReceiver> mSystemReceivers = new HashSet<BroadcastReceiver>();
+    private Context mContext;
+
+    private int mMessages;
+    private int mTimeChanges;
+
+    private final FaceReceivers.Callback mCallback = new FaceReceivers.Callback() {
+        @Override
+        public void onWeatherMessage(byte[] message) {
+            mMessages++;
+        }
+
+        @Override
+        public void onTimeChanged() {
+            mTimeChanges++;
+        }
+    };
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mContext = new ContextWrapper(getContext()) {
+            @Override
+            public Intent registerReceiver(BroadcastReceiver receiver, IntentFilter filter) {
+                assertTrue("Error: Receiver registered twice", mSystemReceivers.add(receiver));
+                return super.registerReceiver(receiver, filter);
+            }
+
+            @Override
+            public void unregisterReceiver(BroadcastReceiver receiver) {
+                assertTrue("Error: Receiver was not registered", mSystemReceivers.remove(receiver));
+                super.unregisterReceiver(receiver);
+            }
+        };
+    }
+
+    private void sendWeather() {
+        Intent intent = new Intent(Intent.ACTION_SEND);
+        intent.putExtra(ListenerService.EXTRA_MESSAGE, new byte[] {1, 2, 3});
+        LocalBroadcastManager.getInstance(mContext).sendBroadcastSync(intent);
+    }
+
+    public void testNoReceiversLeakAcrossEngines() {
+        // Each engine is shown and hidden a few times, then destroyed while visible
+        for (int i = 0; i < ENGINES; i++) {
+            FaceReceivers receivers = new FaceReceivers(mContext, mCallback);
+            for (int j = 0; j < 3; j++) {
+                receivers.register();
+                receivers.register();
+                receivers.unregister();
+            }
+            receivers.register();
+            receivers.unregister();
+            receivers.unregister();
+            assertFalse(receivers.isRegistered());
+        }
+
+        assertTrue("Error: " + mSystemReceivers.size() + " system receivers leaked",
+                mSystemReceivers.isEmpty());
+        sendWeather();
+        assertEquals("Error: A destroyed engine still received weather", 0, mMessages);
+    }
+
+    public void testOnlyVisibleFaceReceives() {
+        FaceReceivers hidden = new FaceReceivers(mContext, mCallback);
+        FaceReceivers visible = new FaceReceivers(mContext, mCallback);
+        hidden.register();
+        hidden.unregister();
+        visible.register();
+
+        sendWeather();
+        assertEquals(1, mMessages);
+        assertEquals(1, mSystemReceivers.size());
+
+        // Without a message the broadcast only asks for the time zone to be refreshed
+        LocalBroadcastManager.getInstance(mContext).sendBroadcastSync(
+                new Intent(Intent.ACTION_SEND));
+        assertEquals(1, mMessages);
+        assertEquals(1, mTimeChanges);
+
+        visible.unregister();
+        sendWeather();
+        assertEquals(1, mMessages);
+        assertTrue(mSystemReceivers.isEmpty());
+    }
+}
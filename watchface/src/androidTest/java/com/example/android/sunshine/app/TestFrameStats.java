@@ -0,0 +1,84 @@
+package com.example.android.sunshine.app;
+
+import android.test.AndroidTestCase;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+public class TestFrameStats extends AndroidTestCase {
+
+    private static final long DEADLINE_MS = 1000;
+
+    private FrameStats mStats;
+    private long mNow;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mStats = new FrameStats(DEADLINE_MS);
+        mNow = TimeUnit.SECONDS.toNanos(100);
+    }
+
+    private void frame(long latencyMs, long drawMs) {
+        mStats.onInvalidate(mNow);
+        mNow += TimeUnit.MILLISECONDS.toNanos(latencyMs);
+        mStats.onDrawStarted(mNow);
+        mNow += TimeUnit.MILLISECONDS.toNanos(drawMs);
+        mStats.onDrawFinished(mNow);
+    }
+
+    public void testHistogram() {
+        assertEquals(0, FrameStats.getBucket(TimeUnit.MICROSECONDS.toNanos(500)));
+        assertEquals(1, FrameStats.getBucket(TimeUnit.MILLISECONDS.toNanos(1)));
+        assertEquals(4, FrameStats.getBucket(TimeUnit.MILLISECONDS.toNanos(15)));
+        assertEquals(FrameStats.BUCKET_LIMITS_MS.length,
+                FrameStats.getBucket(TimeUnit.MILLISECONDS.toNanos(200)));
+
+        frame(0, 3);
+        frame(0, 3);
+        frame(0, 20);
+        assertEquals(3, mStats.getFrameCount());
+        assertEquals(2, mStats.getHistogramCount(2));
+        assertEquals(1, mStats.getHistogramCount(5));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(20), mStats.getMaxDrawNanos());
+    }
+
+    public void testLatencyFromFirstInvalidate() {
+        mStats.onInvalidate(mNow);
+        mNow += TimeUnit.MILLISECONDS.toNanos(30);
+        // A second invalidate before the frame is answered by the same frame
+        mStats.onInvalidate(mNow);
+        mNow += TimeUnit.MILLISECONDS.toNanos(10);
+        mStats.onDrawStarted(mNow);
+        mStats.onDrawFinished(mNow);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(40), mStats.getMaxLatencyNanos());
+
+        // A frame without an invalidate has no latency to record
+        mStats.onDrawStarted(mNow);
+        mStats.onDrawFinished(mNow);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(40), mStats.getAverageLatencyNanos());
+    }
+
+    public void testMissedDeadlines() {
+        frame(10, 10);
+        frame(DEADLINE_MS - 10, 20);
+        frame(0, DEADLINE_MS + 1);
+        assertEquals("Error: Latency and draw time together make a frame late",
+                2, mStats.getMissedDeadlineCount());
+    }
+
+    public void testDumpAndReset() {
+        frame(5, 5);
+        StringWriter out = new StringWriter();
+        mStats.dump("", new PrintWriter(out));
+        String dump = out.toString();
+        assertTrue(dump.startsWith("frames=1 missed=0"));
+        assertTrue(dump.contains("drawMs[4,8)=1"));
+        assertTrue(dump.contains("drawMs[64,inf)=0"));
+
+        mStats.reset();
+        assertEquals(0, mStats.getFrameCount());
+        assertEquals(0, mStats.getHistogramCount(3));
+    }
+}
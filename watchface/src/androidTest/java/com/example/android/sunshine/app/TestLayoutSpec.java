@@ -0,0 +1,77 @@
+package com.example.android.sunshine.app;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.test.AndroidTestCase;
+
+public class TestLayoutSpec extends AndroidTestCase {
+
+    private static final float DELTA = 0.01f;
+
+    public void testTimeLayout() {
+        LayoutSpec layout = new LayoutSpec();
+        Rect bounds = new Rect(0, 0, 320, 320);
+
+        layout.layOutTime(bounds, 65, 50, 10, 60, 0);
+        assertEquals(100, layout.hourX, DELTA);
+        assertEquals(150, layout.colonX, DELTA);
+        assertEquals(160, layout.minuteX, DELTA);
+        assertEquals(220, layout.timeRight, DELTA);
+        assertEquals(65, layout.timeY, DELTA);
+
+        // AM/PM follows a colon-wide gap, and counts towards centering
+        layout.layOutTime(bounds, 65, 50, 10, 60, 30);
+        assertEquals(80, layout.hourX, DELTA);
+        assertEquals(210, layout.amPmX, DELTA);
+        assertEquals(240, layout.timeRight, DELTA);
+    }
+
+    public void testWeatherLayout() {
+        LayoutSpec layout = new LayoutSpec();
+        // Wider than tall, like a square face with a chin; the icon has to use the width
+        layout.layOutWeather(new Rect(0, 0, 320, 290), 150, 0, 70, 50, 75, 40);
+        assertEquals(100, layout.highX, DELTA);
+        assertEquals(170, layout.lowX, DELTA);
+        assertEquals(220, layout.temperatureRight, DELTA);
+        assertEquals(140, layout.iconX, DELTA);
+        assertEquals(75, layout.iconY, DELTA);
+        assertEquals(40, layout.iconSize);
+
+        // Another day's name comes first and shifts the temperatures right
+        layout.layOutWeather(new Rect(0, 0, 320, 290), 150, 40, 70, 50, 75, 40);
+        assertEquals(80, layout.labelX, DELTA);
+        assertEquals(120, layout.highX, DELTA);
+        assertEquals(190, layout.lowX, DELTA);
+        assertEquals(240, layout.temperatureRight, DELTA);
+        assertEquals(140, layout.iconX, DELTA);
+    }
+
+    public void testRendererCentersEverythingOnBothShapes() {
+        Canvas canvas = new Canvas(Bitmap.createBitmap(400, 400, Bitmap.Config.ARGB_8888));
+        for (int shape = 0; shape < 4; shape++) {
+            boolean isRound = (shape & 1) != 0;
+            boolean is24Hour = (shape & 2) != 0;
+            RenderState state = TestWatchFaceRenderer.createState(isRound, is24Hour);
+            state.bounds.set(0, 0, 360, isRound ? 360 : 330);
+
+            WatchFaceRenderer renderer = new WatchFaceRenderer(getContext().getResources());
+            for (int i = 0; i < TestWatchFaceRenderer.FRAMES; i++) {
+                TestWatchFaceRenderer.setFrameTime(state, i);
+                renderer.draw(canvas, state);
+
+                LayoutSpec layout = renderer.getLayout();
+                String where = " round=" + isRound + " 24h=" + is24Hour + " at "
+                        + state.hourOfDay + ":" + state.minute;
+                assertEquals("Error: Time not centered" + where, state.bounds.exactCenterX(),
+                        (layout.timeLeft + layout.timeRight) / 2, DELTA);
+                assertEquals("Error: Temperature not centered" + where,
+                        state.bounds.exactCenterX(),
+                        (layout.temperatureLeft + layout.temperatureRight) / 2, DELTA);
+                assertEquals("Error: Icon not centered" + where, state.bounds.exactCenterX(),
+                        layout.iconX + layout.iconSize / 2f, DELTA);
+                assertTrue(layout.iconSize > 0);
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.android.sunshine.app;
+
+import android.test.AndroidTestCase;
+
+public class TestUpdateCadence extends AndroidTestCase {
+
+    private static final long HOUR_MS = 60 * UpdateCadence.MINUTE_MS;
+    // Deliberately not on a second boundary
+    private static final long TEST_TIME = 1456790400000L + 25 * UpdateCadence.SECOND_MS + 123;
+
+    /*
+        Follows the cadence for an hour the way the Engine's timer does, checking that every
+        wakeup lands on a boundary, and returns how many there were.
+     */
+    private int countWakeupsInHour(UpdateCadence cadence) {
+        int wakeups = 0;
+        long now = TEST_TIME;
+        while (true) {
+            long delayMs = cadence.getDelayMs(now);
+            assertTrue("Error: The delay should never be zero", delayMs > 0);
+            now += delayMs;
+            if (now > TEST_TIME + HOUR_MS) {
+                return wakeups;
+            }
+            assertEquals("Error: Wakeup not on a boundary", 0, now % cadence.getIntervalMs());
+            wakeups++;
+        }
+    }
+
+    public void testMinuteModeWakesUpEveryMinute() {
+        UpdateCadence cadence = new UpdateCadence(false);
+        assertFalse(cadence.isSecondsMode());
+        assertEquals(60, countWakeupsInHour(cadence));
+    }
+
+    public void testSecondsModeWakesUpEverySecond() {
+        UpdateCadence cadence = new UpdateCadence(true);
+        assertTrue(cadence.isSecondsMode());
+        assertEquals(3600, countWakeupsInHour(cadence));
+    }
+
+    public void testDelayOnBoundary() {
+        UpdateCadence cadence = new UpdateCadence(false);
+        long minute = 1456790400000L;
+        assertEquals(UpdateCadence.MINUTE_MS, cadence.getDelayMs(minute));
+        assertEquals(1, cadence.getDelayMs(minute - 1));
+    }
+}
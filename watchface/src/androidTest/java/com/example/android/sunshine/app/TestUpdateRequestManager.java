@@ -0,0 +1,72 @@
+package com.example.android.sunshine.app;
+
+import android.test.AndroidTestCase;
+
+public class TestUpdateRequestManager extends AndroidTestCase {
+
+    private static final long FRAME_MS = 1000;
+
+    private int mRequestsSent;
+    private UpdateRequestManager mManager;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mRequestsSent = 0;
+        mManager = new UpdateRequestManager(new UpdateRequestManager.Sender() {
+            @Override
+            public void sendUpdateRequest() {
+                mRequestsSent++;
+            }
+        });
+    }
+
+    public void testOneOutstandingRequest() {
+        // A face without weather asks on every frame; only the first frame may send
+        long now = 0;
+        for (int i = 0; i < 5; i++) {
+            mManager.requestUpdate(now);
+            now += FRAME_MS;
+        }
+        assertEquals("Error: Only one request should be outstanding", 1, mRequestsSent);
+        assertEquals(1, mManager.getSentCount());
+        assertEquals(4, mManager.getSuppressedCount());
+        assertTrue(mManager.isOutstanding());
+    }
+
+    public void testExponentialBackoff() {
+        long now = 0;
+        long expectedBackoff = UpdateRequestManager.INITIAL_BACKOFF_MS;
+        assertTrue(mManager.requestUpdate(now));
+        for (int attempt = 1; attempt < 12; attempt++) {
+            assertFalse("Error: Retried before the backoff elapsed",
+                    mManager.requestUpdate(now + expectedBackoff - 1));
+            now += expectedBackoff;
+            assertTrue("Error: Did not retry once the backoff elapsed",
+                    mManager.requestUpdate(now));
+            expectedBackoff = Math.min(expectedBackoff * 2, UpdateRequestManager.MAX_BACKOFF_MS);
+            assertEquals(expectedBackoff, mManager.getBackoffMs());
+        }
+        assertEquals(12, mRequestsSent);
+        assertEquals(UpdateRequestManager.MAX_BACKOFF_MS, mManager.getBackoffMs());
+    }
+
+    public void testDataCancelsRequest() {
+        mManager.requestUpdate(0);
+        mManager.requestUpdate(UpdateRequestManager.INITIAL_BACKOFF_MS);
+        mManager.onDataReceived();
+        assertFalse(mManager.isOutstanding());
+        assertEquals(1, mManager.getAnsweredCount());
+        assertEquals("Error: Receiving data should reset the backoff",
+                UpdateRequestManager.INITIAL_BACKOFF_MS, mManager.getBackoffMs());
+
+        // Data that later goes stale can be requested again straight away
+        assertTrue(mManager.requestUpdate(UpdateRequestManager.INITIAL_BACKOFF_MS + 1));
+        assertEquals(3, mRequestsSent);
+
+        // Unrequested pushes from the phone don't count as answers
+        mManager.onDataReceived();
+        mManager.onDataReceived();
+        assertEquals(2, mManager.getAnsweredCount());
+    }
+}
@@ -0,0 +1,288 @@
+package com.example.android.sunshine.app;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Rect;
+import android.os.Debug;
+import android.test.AndroidTestCase;
+
+public class TestWatchFaceRenderer extends AndroidTestCase {
+
+    static final int SIZE = 320;
+    static final int FRAMES = 120;
+
+    private static final int AMBIENT_SHIFT_PX = 3;
+
+    /* A pixel differs when a channel is off by more than this */
+    private static final int GLYPH_CHANNEL_TOLERANCE = 16;
+    /* Share of the face allowed to differ between glyph blits and drawText */
+    private static final float GLYPH_PIXEL_TOLERANCE = 0.005f;
+
+    private Bitmap mBitmap;
+    private Canvas mCanvas;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mBitmap = Bitmap.createBitmap(SIZE, SIZE, Bitmap.Config.ARGB_8888);
+        mCanvas = new Canvas(mBitmap);
+    }
+
+    static RenderState createState(boolean isRound, boolean is24Hour) {
+        RenderState state = new RenderState();
+        state.bounds.set(0, 0, SIZE, SIZE);
+        state.round = isRound;
+        state.is24Hour = is24Hour;
+        state.setWeather("21°", "-5°", 804);
+        return state;
+    }
+
+    /**
+     * Sets the time of {@code frame}. Frames are spread 37 minutes apart, so that they cover
+     * every hour and many different minutes.
+     */
+    static void setFrameTime(RenderState state, int frame) {
+        int minutes = frame * 37;
+        state.hourOfDay = minutes / 60 % 24;
+        state.minute = minutes % 60;
+    }
+
+    private WatchFaceRenderer createRenderer() {
+        return new WatchFaceRenderer(getContext().getResources());
+    }
+
+    /*
+        Draws every frame time and returns how many objects the drawing allocated. The first
+        frame is drawn beforehand, since it is allowed to measure text and scale the icon.
+     */
+    private int countAllocations(RenderState state) {
+        WatchFaceRenderer renderer = createRenderer();
+        setFrameTime(state, 0);
+        renderer.draw(mCanvas, state);
+
+        Debug.resetThreadAllocCount();
+        Debug.startAllocCounting();
+        for (int i = 0; i < FRAMES; i++) {
+            setFrameTime(state, i);
+            renderer.draw(mCanvas, state);
+        }
+        Debug.stopAllocCounting();
+        return Debug.getThreadAllocCount();
+    }
+
+    public void testInteractiveFramesDoNotAllocate() {
+        assertEquals("Error: A 24-hour frame allocated",
+                0, countAllocations(createState(true, true)));
+        assertEquals("Error: A 12-hour frame allocated",
+                0, countAllocations(createState(false, false)));
+    }
+
+    public void testAmbientFramesDoNotAllocate() {
+        RenderState state = createState(true, false);
+        state.lowBitAmbient = true;
+        state.ambient = true;
+        assertEquals("Error: An ambient frame allocated", 0, countAllocations(state));
+    }
+
+    public void testStaleAndPeekingFramesDoNotAllocate() {
+        RenderState state = createState(false, true);
+        state.stale = true;
+        assertEquals(0, countAllocations(state));
+        state.showWeather = false;
+        assertEquals(0, countAllocations(state));
+    }
+
+    public void testIconScaledOncePerSize() {
+        WeatherIconCache cache = new WeatherIconCache(getContext().getResources());
+        Bitmap icon = cache.get(804, 48);
+        assertEquals(48, icon.getWidth());
+        assertEquals(48, icon.getHeight());
+        assertSame("Error: The icon should be scaled once", icon, cache.get(804, 48));
+        assertSame("Error: Conditions with the same icon should share it",
+                icon, cache.get(803, 48));
+        assertNotSame(icon, cache.get(800, 48));
+        assertEquals(64, cache.get(804, 64).getWidth());
+        assertNull("Error: An unknown condition has no icon", cache.get(1, 48));
+    }
+
+    public void testSameStateSameFrame() {
+        // The renderer only depends on the state, not on what it drew before
+        WatchFaceRenderer used = createRenderer();
+        RenderState other = createState(false, true);
+        other.ambient = true;
+        used.draw(mCanvas, other);
+
+        RenderState state = createState(true, false);
+        setFrameTime(state, 7);
+        used.draw(mCanvas, state);
+
+        Bitmap expected = Bitmap.createBitmap(SIZE, SIZE, Bitmap.Config.ARGB_8888);
+        createRenderer().draw(new Canvas(expected), state);
+        assertTrue(expected.sameAs(mBitmap));
+    }
+
+    public void testLayerMatchesDirectDrawing() {
+        WatchFaceRenderer direct = createRenderer();
+        direct.setLayerCacheEnabled(false);
+        WatchFaceRenderer layered = createRenderer();
+        RenderState state = createState(true, false);
+
+        Bitmap expected = Bitmap.createBitmap(SIZE, SIZE, Bitmap.Config.ARGB_8888);
+        for (int i = 0; i < FRAMES; i++) {
+            setFrameTime(state, i);
+            direct.draw(new Canvas(expected), state);
+            layered.draw(mCanvas, state);
+            assertTrue("Error: The layered frame differs from drawing directly",
+                    expected.sameAs(mBitmap));
+        }
+
+        // The layer has to follow the weather and the peek card
+        state.setWeather("3°", "-1°", 500);
+        state.showWeather = false;
+        direct.draw(new Canvas(expected), state);
+        layered.draw(mCanvas, state);
+        assertTrue(expected.sameAs(mBitmap));
+        state.showWeather = true;
+        direct.draw(new Canvas(expected), state);
+        layered.draw(mCanvas, state);
+        assertTrue(expected.sameAs(mBitmap));
+    }
+
+    public void testCyclingDaysMatchesFreshRenderer() {
+        DailyForecast forecast = DailyForecast.from(getContext(),
+                TestDailyForecast.createWeekPayload());
+        WatchFaceRenderer cycling = createRenderer();
+        RenderState state = createState(true, false);
+        setFrameTime(state, 3);
+
+        Bitmap expected = Bitmap.createBitmap(SIZE, SIZE, Bitmap.Config.ARGB_8888);
+        for (int i = 0; i <= forecast.getDayCount(); i++) {
+            state.setForecast(forecast, i % forecast.getDayCount());
+            cycling.draw(mCanvas, state);
+            createRenderer().draw(new Canvas(expected), state);
+            assertTrue("Error: Day " + state.day + " differs from a fresh renderer",
+                    expected.sameAs(mBitmap));
+        }
+    }
+
+    private Bitmap drawAmbient(boolean lowBit, boolean burnIn, int step) {
+        AmbientRenderer renderer = new AmbientRenderer(AMBIENT_SHIFT_PX);
+        renderer.setTextSizes(60, 30, 160);
+        renderer.setLowBitAmbient(lowBit);
+        renderer.setBurnInProtection(burnIn);
+        Bitmap bitmap = Bitmap.createBitmap(SIZE, SIZE, Bitmap.Config.ARGB_8888);
+        renderer.draw(new Canvas(bitmap), new Rect(0, 0, SIZE, SIZE), "10", "08", "AM", step);
+        return bitmap;
+    }
+
+    /*
+        Returns the smallest rectangle containing every pixel that is not black.
+     */
+    private static Rect litBounds(Bitmap bitmap) {
+        Rect lit = new Rect(bitmap.getWidth(), bitmap.getHeight(), -1, -1);
+        for (int y = 0; y < bitmap.getHeight(); y++) {
+            for (int x = 0; x < bitmap.getWidth(); x++) {
+                if (bitmap.getPixel(x, y) != Color.BLACK) {
+                    lit.left = Math.min(lit.left, x);
+                    lit.top = Math.min(lit.top, y);
+                    lit.right = Math.max(lit.right, x);
+                    lit.bottom = Math.max(lit.bottom, y);
+                }
+            }
+        }
+        return lit;
+    }
+
+    public void testLowBitAmbientIsBlackAndWhite() {
+        for (boolean burnIn : new boolean[] {false, true}) {
+            Bitmap bitmap = drawAmbient(true, burnIn, 0);
+            int white = 0;
+            for (int y = 0; y < SIZE; y++) {
+                for (int x = 0; x < SIZE; x++) {
+                    int pixel = bitmap.getPixel(x, y);
+                    assertTrue("Error: Low-bit ambient drew a color other than black and white",
+                            pixel == Color.BLACK || pixel == Color.WHITE);
+                    if (pixel == Color.WHITE) {
+                        white++;
+                    }
+                }
+            }
+            assertTrue("Error: Nothing was drawn", white > 0);
+        }
+    }
+
+    public void testAmbientIsGrayscale() {
+        for (boolean burnIn : new boolean[] {false, true}) {
+            Bitmap bitmap = drawAmbient(false, burnIn, 0);
+            boolean antiAliased = false;
+            for (int y = 0; y < SIZE; y++) {
+                for (int x = 0; x < SIZE; x++) {
+                    int pixel = bitmap.getPixel(x, y);
+                    assertEquals(Color.red(pixel), Color.green(pixel));
+                    assertEquals(Color.red(pixel), Color.blue(pixel));
+                    antiAliased |= pixel != Color.BLACK && pixel != Color.WHITE;
+                }
+            }
+            assertTrue("Error: Text should be anti-aliased without low-bit ambient", antiAliased);
+        }
+    }
+
+    public void testBurnInShiftsTime() {
+        for (boolean lowBit : new boolean[] {false, true}) {
+            // Step 4 is the middle of the grid, where the time is without burn-in protection
+            Rect center = litBounds(drawAmbient(lowBit, true, 4));
+            assertEquals(litBounds(drawAmbient(lowBit, false, 4)), center);
+
+            Rect topLeft = litBounds(drawAmbient(lowBit, true, 0));
+            assertEquals(center.left - AMBIENT_SHIFT_PX, topLeft.left);
+            assertEquals(center.top - AMBIENT_SHIFT_PX, topLeft.top);
+
+            Rect bottomRight = litBounds(drawAmbient(lowBit, true, 8));
+            assertEquals(center.left + AMBIENT_SHIFT_PX, bottomRight.left);
+            assertEquals(center.top + AMBIENT_SHIFT_PX, bottomRight.top);
+
+            assertTrue("Error: Without burn-in protection the time should not move",
+                    drawAmbient(lowBit, false, 0).sameAs(drawAmbient(lowBit, false, 8)));
+        }
+    }
+
+    private static int countDifferentPixels(Bitmap expected, Bitmap actual) {
+        int different = 0;
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                int a = expected.getPixel(x, y);
+                int b = actual.getPixel(x, y);
+                if (Math.abs(Color.red(a) - Color.red(b)) > GLYPH_CHANNEL_TOLERANCE
+                        || Math.abs(Color.green(a) - Color.green(b)) > GLYPH_CHANNEL_TOLERANCE
+                        || Math.abs(Color.blue(a) - Color.blue(b)) > GLYPH_CHANNEL_TOLERANCE) {
+                    different++;
+                }
+            }
+        }
+        return different;
+    }
+
+    public void testGlyphAtlasMatchesDrawText() {
+        for (int shape = 0; shape < 4; shape++) {
+            boolean isRound = (shape & 1) != 0;
+            boolean is24Hour = (shape & 2) != 0;
+            WatchFaceRenderer text = createRenderer();
+            text.setGlyphAtlasEnabled(false);
+            WatchFaceRenderer glyphs = createRenderer();
+            RenderState state = createState(isRound, is24Hour);
+
+            Bitmap expected = Bitmap.createBitmap(SIZE, SIZE, Bitmap.Config.ARGB_8888);
+            for (int i = 0; i < FRAMES; i++) {
+                setFrameTime(state, i);
+                text.draw(new Canvas(expected), state);
+                glyphs.draw(mCanvas, state);
+                int different = countDifferentPixels(expected, mBitmap);
+                assertTrue("Error: " + different + " pixels differ from drawText at "
+                                + state.hourOfDay + ":" + state.minute + ", round=" + isRound
+                                + " 24h=" + is24Hour,
+                        different <= GLYPH_PIXEL_TOLERANCE * SIZE * SIZE);
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.android.sunshine.app;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.test.AndroidTestCase;
+import android.util.Log;
+
+/**
+ * Frame cost of the {@link WatchFaceRenderer} on a software Canvas. The numbers are logged
+ * rather than asserted since they depend on the device; compare runs with
+ * {@code adb logcat -s TestWatchFaceRendererBenchmark}.
+ */
+public class TestWatchFaceRendererBenchmark extends AndroidTestCase {
+
+    public static final String LOG_TAG = TestWatchFaceRendererBenchmark.class.getSimpleName();
+
+    private static final int WARM_UP_FRAMES = 50;
+    private static final int BENCHMARK_FRAMES = 500;
+
+    private Canvas mCanvas;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mCanvas = new Canvas(Bitmap.createBitmap(TestWatchFaceRenderer.SIZE,
+                TestWatchFaceRenderer.SIZE, Bitmap.Config.ARGB_8888));
+    }
+
+    private WatchFaceRenderer createRenderer() {
+        return new WatchFaceRenderer(getContext().getResources());
+    }
+
+    /*
+        Returns the average time to draw a frame, in microseconds. The time changes on every
+        frame, as it would once a minute on the watch.
+     */
+    private long timeFrames(WatchFaceRenderer renderer, RenderState state) {
+        for (int i = 0; i < WARM_UP_FRAMES; i++) {
+            TestWatchFaceRenderer.setFrameTime(state, i);
+            renderer.draw(mCanvas, state);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_FRAMES; i++) {
+            TestWatchFaceRenderer.setFrameTime(state, i % TestWatchFaceRenderer.FRAMES);
+            renderer.draw(mCanvas, state);
+        }
+        return (System.nanoTime() - start) / BENCHMARK_FRAMES / 1000;
+    }
+
+    public void testAllModes() {
+        // Every combination of shape, clock, mode, device properties and weather visibility
+        for (int mode = 0; mode < 64; mode++) {
+            RenderState state = TestWatchFaceRenderer.createState(
+                    (mode & 1) != 0, (mode & 2) != 0);
+            state.ambient = (mode & 4) != 0;
+            state.lowBitAmbient = (mode & 8) != 0;
+            state.burnInProtection = (mode & 16) != 0;
+            state.showWeather = (mode & 32) != 0;
+            if (!state.ambient && (state.lowBitAmbient || state.burnInProtection)) {
+                // The properties only matter in ambient mode
+                continue;
+            }
+            Log.i(LOG_TAG, (state.round ? "round" : "square")
+                    + (state.is24Hour ? " 24h" : " 12h")
+                    + (state.ambient ? " ambient" : " interactive")
+                    + (state.lowBitAmbient ? " lowBit" : "")
+                    + (state.burnInProtection ? " burnIn" : "")
+                    + (state.showWeather ? " weather" : " peeking")
+                    + ": " + timeFrames(createRenderer(), state) + " us/frame");
+        }
+    }
+
+    public void testLayerCache() {
+        WatchFaceRenderer direct = createRenderer();
+        direct.setLayerCacheEnabled(false);
+        long directMicros = timeFrames(direct, TestWatchFaceRenderer.createState(true, false));
+        long layeredMicros = timeFrames(createRenderer(),
+                TestWatchFaceRenderer.createState(true, false));
+
+        Log.i(LOG_TAG, "direct: " + directMicros + " us/frame, layered: "
+                + layeredMicros + " us/frame");
+    }
+
+    public void testGlyphAtlas() {
+        WatchFaceRenderer text = createRenderer();
+        text.setGlyphAtlasEnabled(false);
+        long textMicros = timeFrames(text, TestWatchFaceRenderer.createState(true, false));
+        long glyphMicros = timeFrames(createRenderer(),
+                TestWatchFaceRenderer.createState(true, false));
+
+        Log.i(LOG_TAG, "drawText: " + textMicros + " us/frame, glyph atlas: "
+                + glyphMicros + " us/frame");
+    }
+}
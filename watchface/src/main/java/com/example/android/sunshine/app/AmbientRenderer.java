@@ -0,0 +1,161 @@
+package com.example.android.sunshine.app;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.Typeface;
+
+/**
+ * Draws the time in ambient mode, which is all the face shows there. It does the least work
+ * possible once a minute: a black background and the time, with paints of its own so that
+ * entering and leaving ambient mode does not touch the interactive ones.
+ *
+ * On low-bit displays only black and white are used, without anti-aliasing. With burn-in
+ * protection the time is drawn in a regular weight and moved by a few pixels every minute, so
+ * the same pixels do not stay lit.
+ */
+public class AmbientRenderer {
+
+    private static final Typeface BOLD_TYPEFACE =
+            Typeface.create(Typeface.SANS_SERIF, Typeface.BOLD);
+    private static final Typeface NORMAL_TYPEFACE =
+            Typeface.create(Typeface.SANS_SERIF, Typeface.NORMAL);
+
+    /* Palette for displays that can show shades of gray in ambient mode */
+    private static final int TIME_COLOR = Color.WHITE;
+    private static final int AM_PM_COLOR = Color.LTGRAY;
+    /* Low-bit displays only have full intensity colors */
+    private static final int LOW_BIT_TIME_COLOR = Color.WHITE;
+    private static final int LOW_BIT_AM_PM_COLOR = Color.WHITE;
+
+    private static final String COLON_STRING = ":";
+
+    /**
+     * Number of positions the time moves through with burn-in protection, a 3x3 grid around
+     * where it would normally be.
+     */
+    static final int BURN_IN_STEPS = 9;
+
+    private final Paint mHourPaint = new Paint();
+    private final Paint mMinutePaint = new Paint();
+    private final Paint mColonPaint = new Paint();
+    private final Paint mAmPmPaint = new Paint();
+
+    private final int mShiftPx;
+    private float mTimeYOffset;
+    private boolean mLowBitAmbient;
+    private boolean mBurnInProtection;
+
+    private float mColonWidth;
+    private final LayoutSpec mLayout = new LayoutSpec();
+    private final Rect mLayoutBounds = new Rect();
+    private boolean mLayoutStale = true;
+    private String mLaidOutHour;
+    private String mLaidOutMinute;
+    private String mLaidOutAmPm;
+
+    /**
+     * @param shiftPx how far the time moves in each direction with burn-in protection
+     */
+    public AmbientRenderer(int shiftPx) {
+        mShiftPx = shiftPx;
+        updatePaints();
+    }
+
+    public void setTextSizes(float textSize, float amPmSize, float timeYOffset) {
+        mHourPaint.setTextSize(textSize);
+        mMinutePaint.setTextSize(textSize);
+        mColonPaint.setTextSize(textSize);
+        mAmPmPaint.setTextSize(amPmSize);
+        mTimeYOffset = timeYOffset;
+        invalidateLayout();
+    }
+
+    public void setLowBitAmbient(boolean lowBitAmbient) {
+        if (mLowBitAmbient == lowBitAmbient) {
+            return;
+        }
+        mLowBitAmbient = lowBitAmbient;
+        updatePaints();
+    }
+
+    public void setBurnInProtection(boolean burnInProtection) {
+        if (mBurnInProtection == burnInProtection) {
+            return;
+        }
+        mBurnInProtection = burnInProtection;
+        updatePaints();
+    }
+
+    private void updatePaints() {
+        boolean antiAlias = !mLowBitAmbient;
+        int timeColor = mLowBitAmbient ? LOW_BIT_TIME_COLOR : TIME_COLOR;
+        int amPmColor = mLowBitAmbient ? LOW_BIT_AM_PM_COLOR : AM_PM_COLOR;
+
+        setUp(mHourPaint, timeColor, mBurnInProtection ? NORMAL_TYPEFACE : BOLD_TYPEFACE,
+                antiAlias);
+        setUp(mMinutePaint, timeColor, NORMAL_TYPEFACE, antiAlias);
+        setUp(mColonPaint, timeColor, NORMAL_TYPEFACE, antiAlias);
+        setUp(mAmPmPaint, amPmColor, NORMAL_TYPEFACE, antiAlias);
+        invalidateLayout();
+    }
+
+    private static void setUp(Paint paint, int color, Typeface typeface, boolean antiAlias) {
+        paint.setColor(color);
+        paint.setTypeface(typeface);
+        paint.setAntiAlias(antiAlias);
+    }
+
+    private void invalidateLayout() {
+        mColonWidth = mColonPaint.measureText(COLON_STRING);
+        mLayoutStale = true;
+    }
+
+    /**
+     * Horizontal offset of the time for a step of the burn-in shift, between -shift and shift.
+     */
+    int getShiftX(int step) {
+        return mBurnInProtection ? (step % 3 - 1) * mShiftPx : 0;
+    }
+
+    /**
+     * Vertical offset of the time for a step of the burn-in shift, between -shift and shift.
+     */
+    int getShiftY(int step) {
+        return mBurnInProtection ? (step % BURN_IN_STEPS / 3 - 1) * mShiftPx : 0;
+    }
+
+    /**
+     * @param hourString the hour, one of the renderer's precomputed strings
+     * @param minuteString the minute, one of the renderer's precomputed strings
+     * @param amPmString AM or PM, or null on a 24-hour clock
+     * @param shiftStep which burn-in position to draw at; the minute of the day works well
+     */
+    public void draw(Canvas canvas, Rect bounds, String hourString, String minuteString,
+                     String amPmString, int shiftStep) {
+        canvas.drawColor(Color.BLACK);
+
+        if (mLayoutStale || !mLayoutBounds.equals(bounds) || hourString != mLaidOutHour
+                || minuteString != mLaidOutMinute || amPmString != mLaidOutAmPm) {
+            mLayoutBounds.set(bounds);
+            mLayout.layOutTime(bounds, mTimeYOffset, mHourPaint.measureText(hourString),
+                    mColonWidth, mMinutePaint.measureText(minuteString),
+                    amPmString == null ? 0 : mAmPmPaint.measureText(amPmString));
+            mLaidOutHour = hourString;
+            mLaidOutMinute = minuteString;
+            mLaidOutAmPm = amPmString;
+            mLayoutStale = false;
+        }
+
+        // The layout stays put, the burn-in shift only moves where it is drawn
+        int shiftX = getShiftX(shiftStep);
+        float y = mLayout.timeY + getShiftY(shiftStep);
+        canvas.drawText(hourString, mLayout.hourX + shiftX, y, mHourPaint);
+        canvas.drawText(COLON_STRING, mLayout.colonX + shiftX, y, mColonPaint);
+        canvas.drawText(minuteString, mLayout.minuteX + shiftX, y, mMinutePaint);
+        if (amPmString != null) {
+            canvas.drawText(amPmString, mLayout.amPmX + shiftX, y, mAmPmPaint);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.android.sunshine.app;
+
+import android.content.Context;
+
+import com.example.android.sunshine.app.wear.WeatherPayload;
+
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Locale;
+
+/**
+ * Every day of a {@link WeatherPayload}, today first, formatted for display. The phone sends the
+ * whole forecast in one message, so the face formats it once when the message arrives and then
+ * switches between days without going back to the phone or allocating. An instance never changes
+ * once built; a new forecast is a new instance.
+ */
+public class DailyForecast {
+
+    private final String[] mHigh;
+    private final String[] mLow;
+    private final int[] mWeatherId;
+    private final String[] mLabel;
+
+    private DailyForecast(int dayCount) {
+        mHigh = new String[dayCount];
+        mLow = new String[dayCount];
+        mWeatherId = new int[dayCount];
+        mLabel = new String[dayCount];
+    }
+
+    /**
+     * Formats the temperatures in the units the phone uses, and labels the days after today with
+     * the short name of the weekday, counted from the day the forecast was synced.
+     */
+    public static DailyForecast from(Context context, WeatherPayload payload) {
+        DailyForecast forecast = new DailyForecast(1 + payload.getDayCount());
+        boolean metric = payload.isMetric();
+        forecast.set(0, Utilities.formatTemperature(context, payload.getHigh(), metric),
+                Utilities.formatTemperature(context, payload.getLow(), metric),
+                payload.getWeatherId(), null);
+
+        SimpleDateFormat weekdayFormat = new SimpleDateFormat("EEE", Locale.getDefault());
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(payload.getTimestamp());
+        for (int i = 0; i < payload.getDayCount(); i++) {
+            calendar.add(Calendar.DAY_OF_YEAR, 1);
+            forecast.set(i + 1,
+                    Utilities.formatTemperature(context, payload.getDayHigh(i), metric),
+                    Utilities.formatTemperature(context, payload.getDayLow(i), metric),
+                    payload.getDayWeatherId(i), weekdayFormat.format(calendar.getTime()));
+        }
+        return forecast;
+    }
+
+    private void set(int day, String high, String low, int weatherId, String label) {
+        mHigh[day] = high;
+        mLow[day] = low;
+        mWeatherId[day] = weatherId;
+        mLabel[day] = label;
+    }
+
+    /**
+     * @return the number of days, including today
+     */
+    public int getDayCount() {
+        return mHigh.length;
+    }
+
+    public String getHigh(int day) {
+        return mHigh[day];
+    }
+
+    public String getLow(int day) {
+        return mLow[day];
+    }
+
+    public int getWeatherId(int day) {
+        return mWeatherId[day];
+    }
+
+    /**
+     * @return the short weekday name of {@code day}, or null for today
+     */
+    public String getLabel(int day) {
+        return mLabel[day];
+    }
+}
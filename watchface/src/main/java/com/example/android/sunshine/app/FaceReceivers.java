@@ -0,0 +1,85 @@
+package com.example.android.sunshine.app;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.support.v4.content.LocalBroadcastManager;
+
+/**
+ * The broadcasts the watch face listens to while it is visible: weather forwarded by
+ * {@link ListenerService} through the {@link LocalBroadcastManager}, and time zone or time format
+ * changes from the system. Neither receiver is registered while the face is hidden. The listener
+ * service saves the weather to the {@link ForecastCache} either way, so the face reloads it from
+ * there when it becomes visible again.
+ *
+ * Registering and unregistering can be repeated; each receiver is registered at most once.
+ */
+public class FaceReceivers {
+
+    public interface Callback {
+        /**
+         * Called with a weather message from the phone, in its wire format.
+         */
+        void onWeatherMessage(byte[] message);
+
+        /**
+         * Called when the time zone or the 12/24-hour setting may have changed.
+         */
+        void onTimeChanged();
+    }
+
+    private final Context mContext;
+    private final Callback mCallback;
+    private boolean mRegistered;
+
+    private final BroadcastReceiver mMessageReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            byte[] message = intent.getByteArrayExtra(ListenerService.EXTRA_MESSAGE);
+            if (message != null) {
+                mCallback.onWeatherMessage(message);
+            } else {
+                mCallback.onTimeChanged();
+            }
+        }
+    };
+
+    private final BroadcastReceiver mTimeReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            mCallback.onTimeChanged();
+        }
+    };
+
+    public FaceReceivers(Context context, Callback callback) {
+        mContext = context;
+        mCallback = callback;
+    }
+
+    public void register() {
+        if (mRegistered) {
+            return;
+        }
+        mRegistered = true;
+        LocalBroadcastManager.getInstance(mContext)
+                .registerReceiver(mMessageReceiver, new IntentFilter(Intent.ACTION_SEND));
+        IntentFilter filter = new IntentFilter(Intent.ACTION_TIMEZONE_CHANGED);
+        // Also sent when the user switches between 12 and 24-hour time
+        filter.addAction(Intent.ACTION_TIME_CHANGED);
+        mContext.registerReceiver(mTimeReceiver, filter);
+    }
+
+    public void unregister() {
+        if (!mRegistered) {
+            return;
+        }
+        mRegistered = false;
+        LocalBroadcastManager.getInstance(mContext).unregisterReceiver(mMessageReceiver);
+        mContext.unregisterReceiver(mTimeReceiver);
+    }
+
+    public boolean isRegistered() {
+        return mRegistered;
+    }
+}
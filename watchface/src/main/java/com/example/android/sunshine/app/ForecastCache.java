@@ -0,0 +1,60 @@
+package com.example.android.sunshine.app;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Base64;
+
+import com.example.android.sunshine.app.wear.WeatherPayload;
+import com.example.android.sunshine.app.wear.WeatherPayloadCodec;
+
+/**
+ * Keeps the last forecast received from the phone, so the watch face has weather to show as
+ * soon as it is created instead of waiting for the phone. The forecast is stored in its
+ * {@link WeatherPayloadCodec wire format}, which already carries the time it was synced at.
+ */
+public class ForecastCache {
+
+    private static final String PREFS_NAME = "forecast_cache";
+    private static final String KEY_PAYLOAD = "payload";
+
+    /**
+     * Age after which a cached forecast is shown as out of date. The phone resends an unchanged
+     * forecast before it gets this old.
+     */
+    public static final long STALE_AFTER_MS = WeatherPayload.STALE_AFTER_MS;
+
+    /**
+     * Replaces the cached forecast with {@code message}, which must be one that
+     * {@link WeatherPayloadCodec#decode} accepts.
+     */
+    public static void save(Context context, byte[] message) {
+        getPreferences(context).edit()
+                .putString(KEY_PAYLOAD, Base64.encodeToString(message, Base64.NO_WRAP))
+                .apply();
+    }
+
+    /**
+     * Reads the cached forecast into {@code out}.
+     *
+     * @return true if there was a readable forecast in the cache
+     */
+    public static boolean load(Context context, WeatherPayload out) {
+        String encoded = getPreferences(context).getString(KEY_PAYLOAD, null);
+        if (encoded == null) {
+            return false;
+        }
+        try {
+            return WeatherPayloadCodec.decode(Base64.decode(encoded, Base64.NO_WRAP), out);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    public static boolean isStale(WeatherPayload payload, long now) {
+        return now - payload.getTimestamp() > STALE_AFTER_MS;
+    }
+
+    private static SharedPreferences getPreferences(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.android.sunshine.app;
+
+import java.io.PrintWriter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Frame timing for the watch face: a histogram of how long each frame took to draw, the
+ * latency from the first invalidate() to the frame that answered it, and how many frames missed
+ * their deadline. Recording a frame is a few arithmetic operations and does not allocate, so it
+ * stays on in release builds; the numbers are read with dumpsys.
+ *
+ * All times are from {@link System#nanoTime()}.
+ */
+public class FrameStats {
+
+    /**
+     * Upper bounds of the histogram buckets in milliseconds. A last bucket holds everything
+     * slower.
+     */
+    static final int[] BUCKET_LIMITS_MS = {1, 2, 4, 8, 16, 32, 64};
+
+    private static final long NOT_INVALIDATED = -1;
+
+    private final long mDeadlineNanos;
+    private final int[] mHistogram = new int[BUCKET_LIMITS_MS.length + 1];
+
+    private int mFrameCount;
+    private int mMissedDeadlineCount;
+    private long mTotalDrawNanos;
+    private long mMaxDrawNanos;
+
+    private int mLatencyCount;
+    private long mTotalLatencyNanos;
+    private long mMaxLatencyNanos;
+
+    private long mInvalidatedAt = NOT_INVALIDATED;
+    private long mDrawStartedAt;
+
+    /**
+     * @param deadlineMs how long a frame may take, from being invalidated to being drawn
+     */
+    public FrameStats(long deadlineMs) {
+        mDeadlineNanos = TimeUnit.MILLISECONDS.toNanos(deadlineMs);
+    }
+
+    /**
+     * Called on every invalidate(). Only the first one before a frame counts towards its
+     * latency, since later ones are answered by the same frame.
+     */
+    public void onInvalidate(long now) {
+        if (mInvalidatedAt == NOT_INVALIDATED) {
+            mInvalidatedAt = now;
+        }
+    }
+
+    public void onDrawStarted(long now) {
+        mDrawStartedAt = now;
+    }
+
+    public void onDrawFinished(long now) {
+        long drawNanos = now - mDrawStartedAt;
+        mFrameCount++;
+        mTotalDrawNanos += drawNanos;
+        mMaxDrawNanos = Math.max(mMaxDrawNanos, drawNanos);
+        mHistogram[getBucket(drawNanos)]++;
+
+        // Frames the system draws on its own, after a surface change for instance, have no
+        // invalidate to measure from
+        long frameNanos = drawNanos;
+        if (mInvalidatedAt != NOT_INVALIDATED) {
+            long latencyNanos = mDrawStartedAt - mInvalidatedAt;
+            mLatencyCount++;
+            mTotalLatencyNanos += latencyNanos;
+            mMaxLatencyNanos = Math.max(mMaxLatencyNanos, latencyNanos);
+            frameNanos += latencyNanos;
+            mInvalidatedAt = NOT_INVALIDATED;
+        }
+        if (frameNanos > mDeadlineNanos) {
+            mMissedDeadlineCount++;
+        }
+    }
+
+    static int getBucket(long drawNanos) {
+        long drawMs = TimeUnit.NANOSECONDS.toMillis(drawNanos);
+        for (int i = 0; i < BUCKET_LIMITS_MS.length; i++) {
+            if (drawMs < BUCKET_LIMITS_MS[i]) {
+                return i;
+            }
+        }
+        return BUCKET_LIMITS_MS.length;
+    }
+
+    public int getFrameCount() {
+        return mFrameCount;
+    }
+
+    public int getMissedDeadlineCount() {
+        return mMissedDeadlineCount;
+    }
+
+    /**
+     * @return the number of frames that took as long as the bucket covers to draw
+     */
+    public int getHistogramCount(int bucket) {
+        return mHistogram[bucket];
+    }
+
+    public long getMaxDrawNanos() {
+        return mMaxDrawNanos;
+    }
+
+    public long getAverageDrawNanos() {
+        return mFrameCount == 0 ? 0 : mTotalDrawNanos / mFrameCount;
+    }
+
+    public long getMaxLatencyNanos() {
+        return mMaxLatencyNanos;
+    }
+
+    public long getAverageLatencyNanos() {
+        return mLatencyCount == 0 ? 0 : mTotalLatencyNanos / mLatencyCount;
+    }
+
+    public void reset() {
+        mFrameCount = 0;
+        mMissedDeadlineCount = 0;
+        mTotalDrawNanos = 0;
+        mMaxDrawNanos = 0;
+        mLatencyCount = 0;
+        mTotalLatencyNanos = 0;
+        mMaxLatencyNanos = 0;
+        mInvalidatedAt = NOT_INVALIDATED;
+        for (int i = 0; i < mHistogram.length; i++) {
+            mHistogram[i] = 0;
+        }
+    }
+
+    /**
+     * @return a one line summary, for logging
+     */
+    @Override
+    public String toString() {
+        return "frames=" + mFrameCount + " missed=" + mMissedDeadlineCount
+                + " avgDrawUs=" + TimeUnit.NANOSECONDS.toMicros(getAverageDrawNanos())
+                + " maxDrawUs=" + TimeUnit.NANOSECONDS.toMicros(mMaxDrawNanos)
+                + " avgLatencyUs=" + TimeUnit.NANOSECONDS.toMicros(getAverageLatencyNanos())
+                + " maxLatencyUs=" + TimeUnit.NANOSECONDS.toMicros(mMaxLatencyNanos);
+    }
+
+    /**
+     * Writes the summary and the histogram, one bucket per line, in a form that is easy to
+     * parse offline.
+     */
+    public void dump(String prefix, PrintWriter writer) {
+        writer.print(prefix);
+        writer.println(this);
+        int lowerMs = 0;
+        for (int i = 0; i < mHistogram.length; i++) {
+            writer.print(prefix);
+            writer.print("drawMs[");
+            writer.print(lowerMs);
+            writer.print(',');
+            writer.print(i < BUCKET_LIMITS_MS.length ? String.valueOf(BUCKET_LIMITS_MS[i]) : "inf");
+            writer.print(")=");
+            writer.println(mHistogram[i]);
+            if (i < BUCKET_LIMITS_MS.length) {
+                lowerMs = BUCKET_LIMITS_MS[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.android.sunshine.app;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+
+/**
+ * Text rendered ahead of time with a Paint, so that drawing it is a bitmap copy instead of text
+ * shaping and rasterization. The atlas holds a fixed set of entries: single characters, which
+ * text is composed from one by one, and whole strings such as AM and PM.
+ *
+ * Glyphs are copied to whole pixel positions, which is where drawText places them too unless
+ * subpixel text is turned on. The atlas must be rebuilt when anything about the paint that shows
+ * in its glyphs changes: text size, typeface, anti-aliasing or color.
+ */
+public class GlyphAtlas {
+
+    /* Room around each glyph for anti-aliasing that reaches past its bounds */
+    private static final int PADDING = 2;
+
+    private final String[] mEntries;
+    private final Rect[] mCells;
+    private final int[] mOrigins;
+    private final float[] mAdvances;
+    private final Rect mDestination = new Rect();
+
+    private Bitmap mBitmap;
+    private int mBaseline;
+
+    /**
+     * @param entries the characters, as strings of length one, and whole strings to hold
+     */
+    public GlyphAtlas(String... entries) {
+        mEntries = entries;
+        mCells = new Rect[entries.length];
+        mOrigins = new int[entries.length];
+        mAdvances = new float[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            mCells[i] = new Rect();
+        }
+    }
+
+    public boolean isBuilt() {
+        return mBitmap != null;
+    }
+
+    /**
+     * Renders every entry with {@code paint}, replacing what the atlas held before.
+     */
+    public void build(Paint paint) {
+        release();
+
+        Paint.FontMetricsInt metrics = paint.getFontMetricsInt();
+        int height = metrics.bottom - metrics.top + 2 * PADDING;
+        mBaseline = PADDING - metrics.top;
+
+        Rect bounds = new Rect();
+        int width = 0;
+        for (int i = 0; i < mEntries.length; i++) {
+            String entry = mEntries[i];
+            mAdvances[i] = paint.measureText(entry);
+            paint.getTextBounds(entry, 0, entry.length(), bounds);
+            int left = Math.min(0, bounds.left) - PADDING;
+            int right = Math.max((int) Math.ceil(mAdvances[i]), bounds.right) + PADDING;
+            mOrigins[i] = -left;
+            mCells[i].set(width, 0, width + right - left, height);
+            width += right - left;
+        }
+
+        mBitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(mBitmap);
+        for (int i = 0; i < mEntries.length; i++) {
+            canvas.drawText(mEntries[i], mCells[i].left + mOrigins[i], mBaseline, paint);
+        }
+    }
+
+    /**
+     * Frees the rendered glyphs; {@link #build} has to be called before drawing again.
+     */
+    public void release() {
+        if (mBitmap != null) {
+            mBitmap.recycle();
+            mBitmap = null;
+        }
+    }
+
+    /**
+     * @return the width of {@code text}, as {@link Paint#measureText(String)} would give it
+     */
+    public float measure(String text) {
+        int entry = indexOf(text);
+        if (entry >= 0) {
+            return mAdvances[entry];
+        }
+        float width = 0;
+        for (int i = 0; i < text.length(); i++) {
+            width += mAdvances[indexOf(text.charAt(i))];
+        }
+        return width;
+    }
+
+    /**
+     * Draws {@code text} with its baseline starting at ({@code x}, {@code y}), like
+     * {@link Canvas#drawText(String, float, float, Paint)}.
+     *
+     * @return the x coordinate following the text
+     */
+    public float draw(Canvas canvas, String text, float x, float y) {
+        int entry = indexOf(text);
+        if (entry >= 0) {
+            return x + drawEntry(canvas, entry, x, y);
+        }
+        for (int i = 0; i < text.length(); i++) {
+            x += drawEntry(canvas, indexOf(text.charAt(i)), x, y);
+        }
+        return x;
+    }
+
+    private float drawEntry(Canvas canvas, int entry, float x, float y) {
+        Rect cell = mCells[entry];
+        int left = Math.round(x) - mOrigins[entry];
+        int top = Math.round(y) - mBaseline;
+        mDestination.set(left, top, left + cell.width(), top + cell.height());
+        canvas.drawBitmap(mBitmap, cell, mDestination, null);
+        return mAdvances[entry];
+    }
+
+    private int indexOf(String text) {
+        for (int i = 0; i < mEntries.length; i++) {
+            if (mEntries[i].equals(text)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int indexOf(char c) {
+        for (int i = 0; i < mEntries.length; i++) {
+            if (mEntries[i].length() == 1 && mEntries[i].charAt(0) == c) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("No glyph for '" + c + "'");
+    }
+}
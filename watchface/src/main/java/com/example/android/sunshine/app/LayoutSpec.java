@@ -0,0 +1,74 @@
+package com.example.android.sunshine.app;
+
+import android.graphics.Rect;
+
+/**
+ * Absolute positions of everything on the face. The renderer lays the time out again only when
+ * its text, the bounds or the text size change, and the weather only when the weather, the
+ * bounds or the text size change; drawing a frame just reads the coordinates.
+ *
+ * Text coordinates are where drawText starts, on the baseline. Each block is centered
+ * horizontally in the bounds.
+ */
+public class LayoutSpec {
+
+    public float hourX;
+    public float colonX;
+    public float minuteX;
+    /** Where AM/PM starts, on a 12-hour clock */
+    public float amPmX;
+    public float timeY;
+    public float timeLeft;
+    public float timeRight;
+
+    /** Where the name of the day starts, when a day other than today is on display */
+    public float labelX;
+    public float highX;
+    public float lowX;
+    public float temperatureY;
+    public float temperatureLeft;
+    public float temperatureRight;
+
+    public float iconX;
+    public float iconY;
+    public int iconSize;
+
+    /**
+     * @param amPmWidth the width of AM/PM, or 0 on a 24-hour clock. The gap before it is as wide
+     *                  as the colon.
+     */
+    public void layOutTime(Rect bounds, float timeY, float hourWidth, float colonWidth,
+                           float minuteWidth, float amPmWidth) {
+        float width = hourWidth + colonWidth + minuteWidth;
+        if (amPmWidth > 0) {
+            width += colonWidth + amPmWidth;
+        }
+        timeLeft = bounds.exactCenterX() - width / 2;
+        timeRight = timeLeft + width;
+        hourX = timeLeft;
+        colonX = hourX + hourWidth;
+        minuteX = colonX + colonWidth;
+        amPmX = minuteX + minuteWidth + colonWidth;
+        this.timeY = timeY;
+    }
+
+    /**
+     * @param labelWidth the width of the day's name, including the space that separates it from
+     *                   the high, or 0 for today
+     * @param highWidth the width of the high, including the space that separates it from the low
+     */
+    public void layOutWeather(Rect bounds, float temperatureY, float labelWidth, float highWidth,
+                              float lowWidth, float iconY, int iconSize) {
+        float width = labelWidth + highWidth + lowWidth;
+        temperatureLeft = bounds.exactCenterX() - width / 2;
+        temperatureRight = temperatureLeft + width;
+        labelX = temperatureLeft;
+        highX = labelX + labelWidth;
+        lowX = highX + highWidth;
+        this.temperatureY = temperatureY;
+
+        this.iconSize = iconSize;
+        iconX = bounds.exactCenterX() - iconSize / 2f;
+        this.iconY = iconY;
+    }
+}
@@ -4,6 +4,9 @@ import android.content.Intent;
 import android.support.v4.content.LocalBroadcastManager;
 import android.util.Log;
 
+import com.example.android.sunshine.app.wear.WearContract;
+import com.example.android.sunshine.app.wear.WeatherPayload;
+import com.example.android.sunshine.app.wear.WeatherPayloadCodec;
 import com.google.android.gms.wearable.MessageEvent;
 import com.google.android.gms.wearable.WearableListenerService;
 
@@ -11,19 +14,29 @@ import com.google.android.gms.wearable.WearableListenerService;
  * Created by Joopk on 2/20/2016.
  */
 public class ListenerService extends WearableListenerService {
+
+    /** The weather message forwarded to the watch face, in its wire format */
+    public static final String EXTRA_MESSAGE = "message";
+
     String LOG_TAG = ListenerService.class.getSimpleName();
 
     @Override
     public void onMessageReceived(MessageEvent messageEvent) {
 
-        if (messageEvent.getPath().equals("/message_path")) {
-            final String message = new String(messageEvent.getData());
+        if (messageEvent.getPath().equals(WearContract.PATH_WEATHER)) {
+            final byte[] message = messageEvent.getData();
             Log.v(LOG_TAG, "Message path received on watch is: " + messageEvent.getPath());
-            Log.v(LOG_TAG, "Message received on watch is: " + message);
+            Log.v(LOG_TAG, "Message received on watch is " + message.length + " bytes");
+            // Only a message the face can read may replace the cached forecast
+            if (!WeatherPayloadCodec.decode(message, new WeatherPayload())) {
+                Log.w(LOG_TAG, "Ignoring weather message in an unknown format");
+                return;
+            }
+            ForecastCache.save(this, message);
 
             Intent messageIntent = new Intent();
             messageIntent.setAction(Intent.ACTION_SEND);
-            messageIntent.putExtra("message", message);
+            messageIntent.putExtra(EXTRA_MESSAGE, message);
             LocalBroadcastManager.getInstance(this).sendBroadcast(messageIntent);
         } else {
             super.onMessageReceived(messageEvent);
@@ -0,0 +1,65 @@
+package com.example.android.sunshine.app;
+
+import android.graphics.Rect;
+
+import java.util.Calendar;
+
+/**
+ * Everything a {@link WatchFaceRenderer} draws a frame from. The Engine keeps a single instance
+ * and updates it in place as callbacks come in, so that drawing a frame does not allocate.
+ */
+public class RenderState {
+
+    /** Where to draw the face on the canvas */
+    public final Rect bounds = new Rect();
+    public boolean round;
+
+    public boolean ambient;
+    public boolean lowBitAmbient;
+    public boolean burnInProtection;
+
+    public boolean is24Hour;
+    /** 0 to 23 */
+    public int hourOfDay;
+    public int minute;
+
+    /** The high and low on display, formatted, or null until weather arrives */
+    public String highTemperature;
+    public String lowTemperature;
+    public int weatherId;
+    /** Short name of the day on display, or null for today */
+    public String dayLabel;
+    /** Every day the phone sent, or null. The renderer prepares the icons of all of them. */
+    public DailyForecast forecast;
+    /** Which day of {@link #forecast} is on display, 0 for today */
+    public int day;
+    /** Whether the weather is old enough to be shown faded out */
+    public boolean stale;
+    /** False to leave out the weather, for instance while a card is peeking */
+    public boolean showWeather = true;
+
+    public void setTime(Calendar calendar) {
+        hourOfDay = calendar.get(Calendar.HOUR_OF_DAY);
+        minute = calendar.get(Calendar.MINUTE);
+    }
+
+    public void setWeather(String high, String low, int weatherId) {
+        highTemperature = high;
+        lowTemperature = low;
+        this.weatherId = weatherId;
+    }
+
+    /**
+     * Displays {@code day} of {@code forecast}.
+     */
+    public void setForecast(DailyForecast forecast, int day) {
+        this.forecast = forecast;
+        this.day = day;
+        setWeather(forecast.getHigh(day), forecast.getLow(day), forecast.getWeatherId(day));
+        dayLabel = forecast.getLabel(day);
+    }
+
+    public boolean hasWeather() {
+        return highTemperature != null && lowTemperature != null;
+    }
+}
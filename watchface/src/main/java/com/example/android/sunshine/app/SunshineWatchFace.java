@@ -16,23 +16,13 @@
 
 package com.example.android.sunshine.app;
 
-import android.content.BroadcastReceiver;
-import android.content.Context;
-import android.content.Intent;
-import android.content.IntentFilter;
-import android.content.res.Resources;
-import android.graphics.Bitmap;
 import android.graphics.Canvas;
-import android.graphics.Color;
-import android.graphics.Paint;
 import android.graphics.Rect;
-import android.graphics.Typeface;
-import android.graphics.drawable.BitmapDrawable;
-import android.graphics.drawable.Drawable;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Message;
-import android.support.v4.content.LocalBroadcastManager;
+import android.os.SystemClock;
+import android.os.Trace;
 import android.support.wearable.watchface.CanvasWatchFaceService;
 import android.support.wearable.watchface.WatchFaceStyle;
 import android.text.format.DateFormat;
@@ -40,16 +30,18 @@ import android.util.Log;
 import android.view.SurfaceHolder;
 import android.view.WindowInsets;
 
+import com.example.android.sunshine.app.wear.WearContract;
+import com.example.android.sunshine.app.wear.WearMessageSender;
+import com.example.android.sunshine.app.wear.WeatherPayload;
+import com.example.android.sunshine.app.wear.WeatherPayloadCodec;
 import com.google.android.gms.common.ConnectionResult;
 import com.google.android.gms.common.api.GoogleApiClient;
-import com.google.android.gms.wearable.MessageApi;
-import com.google.android.gms.wearable.Node;
-import com.google.android.gms.wearable.NodeApi;
 import com.google.android.gms.wearable.Wearable;
 
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
 import java.util.Calendar;
 import java.util.TimeZone;
-import java.util.concurrent.TimeUnit;
 
 /**
  * Digital watch face with seconds. In ambient mode, the seconds aren't displayed. On devices with
@@ -59,15 +51,27 @@ public class SunshineWatchFace extends CanvasWatchFaceService {
 
     private static final String LOG_TAG = SunshineWatchFace.class.getSimpleName();
 
-    private static final Typeface BOLD_TYPEFACE =
-            Typeface.create(Typeface.SANS_SERIF, Typeface.BOLD);
-    private static final Typeface NORMAL_TYPEFACE =
-            Typeface.create(Typeface.SANS_SERIF, Typeface.NORMAL);
+    /**
+     * How long a frame may take in milliseconds, from invalidate() to drawn, before it counts as
+     * missing its deadline. This is the shortest interval the face ever redraws at.
+     */
+    private static final long ACTIVE_INTERVAL_MS = UpdateCadence.SECOND_MS;
+
+    private static final byte[] UPDATE_REQUEST_MESSAGE = "updater".getBytes();
+
+    /**
+     * How long the connection to Google Play services is kept after an update request. The face
+     * only needs it to send requests; the weather itself arrives through {@link ListenerService}.
+     */
+    private static final long CONNECTION_IDLE_MS = 30 * 1000;
+
+    private static final String TRACE_DRAW = "SunshineWatchFace#onDraw";
 
     /**
-     * Update rate in milliseconds for active mode (non-ambient).
+     * Frame stats are logged every this many frames, when verbose logging is on for
+     * {@link #LOG_TAG}.
      */
-    private static final long ACTIVE_INTERVAL_MS = TimeUnit.SECONDS.toMillis(1);
+    private static final int LOG_STATS_EVERY_FRAMES = 600;
 
 
     @Override
@@ -78,71 +82,54 @@ public class SunshineWatchFace extends CanvasWatchFaceService {
     private class Engine extends CanvasWatchFaceService.Engine implements GoogleApiClient.ConnectionCallbacks, GoogleApiClient.OnConnectionFailedListener {
 
 
-        private static final int TEXT_HOURS_MINS_COLOR = Color.WHITE;
-        private static final int TEXT_AM_PM_COLOR = Color.WHITE;
-        private static final int TEXT_COLON_COLOR = Color.WHITE;
-
-
-        private static final String COLON_STRING = ":";
-
         private static final int MSG_UPDATE_TIME = 0;
+        private static final int MSG_DISCONNECT = 1;
 
-        /* Handler to update the time periodically in interactive mode. */
+        /*
+            Handler to update the time periodically in interactive mode, and to drop the
+            connection to Google Play services once it is idle.
+         */
         private final Handler mUpdateTimeHandler = new Handler() {
             @Override
             public void handleMessage(Message message) {
                 switch (message.what) {
                     case MSG_UPDATE_TIME:
-                        Log.v(LOG_TAG, "updating time");
                         invalidate();
                         if (shouldUpdateTimeHandlerBeRunning()) {
-                            long timeMs = System.currentTimeMillis();
-                            long delayMs =
-                                    ACTIVE_INTERVAL_MS - (timeMs % ACTIVE_INTERVAL_MS);
+                            long delayMs = mCadence.getDelayMs(System.currentTimeMillis());
                             mUpdateTimeHandler.sendEmptyMessageDelayed(MSG_UPDATE_TIME, delayMs);
                         }
                         break;
+                    case MSG_DISCONNECT:
+                        disconnect();
+                        break;
                 }
             }
         };
 
 
-        private Paint mHourPaint;
-        private Paint mMinutePaint;
-        private Paint mAmPmPaint;
-        private Paint mColonPaint;
-        private Paint mIconPaint;
-        private Paint mHighPaint;
-        private Paint mLowPaint;
-
-        private float mColonWidth;
-
+        private WatchFaceRenderer mRenderer;
+        private final RenderState mRenderState = new RenderState();
         private Calendar mCalendar;
+        private FaceReceivers mReceivers;
 
+        private final FrameStats mFrameStats = new FrameStats(ACTIVE_INTERVAL_MS);
+        private UpdateCadence mCadence;
 
-        private float mTimeYOffset;
-        private float mIconYOffset;
-        private float mTemperatureYOffset;
-        private double mIconMultiplier;
-
-
-        private String mAmString;
-        private String mPmString;
-        private boolean mAmbientMode = false;
-        private String mHighTemperature;
-        private String mLowTemperature;
-        private int mWeatherId;
+        private final WeatherPayload mPayload = new WeatherPayload();
         GoogleApiClient googleClient;
-
-        /**
-         * Whether the display supports fewer bits for each color in ambient mode. When true, we
-         * disable anti-aliasing in ambient mode.
-         */
-        private boolean mLowBitAmbient;
+        WearMessageSender mMessageSender;
+        UpdateRequestManager mUpdateRequestManager;
 
 
         @Override
         public void onConnected(Bundle bundle) {
+            // A request that was already being sent when the face was hidden connects anyway;
+            // don't let the connection outlive it
+            if (!isVisible()) {
+                mUpdateTimeHandler.removeMessages(MSG_DISCONNECT);
+                mUpdateTimeHandler.sendEmptyMessageDelayed(MSG_DISCONNECT, CONNECTION_IDLE_MS);
+            }
         }
 
         @Override
@@ -154,21 +141,31 @@ public class SunshineWatchFace extends CanvasWatchFaceService {
         }
 
 
-        public class MessageReceiver extends BroadcastReceiver {
+        /* Only registered while the face is visible */
+        private final FaceReceivers.Callback mReceiverCallback = new FaceReceivers.Callback() {
             @Override
-            public void onReceive(Context context, Intent intent) {
-
-                if (intent.getExtras() != null && intent.getExtras().containsKey("message")) {
-                    String message = intent.getStringExtra("message");
-                    String[] splitMessage = message.split("\\s+");
-                    mHighTemperature = splitMessage[0];
-                    mLowTemperature = splitMessage[1];
-                    mWeatherId = Integer.parseInt(splitMessage[2]);
-                } else {
-                    mCalendar.setTimeZone(TimeZone.getDefault());
+            public void onWeatherMessage(byte[] message) {
+                if (!WeatherPayloadCodec.decode(message, mPayload)) {
+                    Log.w(LOG_TAG, "Ignoring weather message in an unknown format");
+                    return;
                 }
+                mUpdateRequestManager.onDataReceived();
+                applyPayload();
+                invalidate();
+            }
+
+            @Override
+            public void onTimeChanged() {
+                updateTimeFormat();
                 invalidate();
             }
+        };
+
+        /**
+         * Updates the weather shown from {@link #mPayload}, going back to today.
+         */
+        private void applyPayload() {
+            mRenderState.setForecast(DailyForecast.from(SunshineWatchFace.this, mPayload), 0);
         }
 
         @Override
@@ -179,7 +176,19 @@ public class SunshineWatchFace extends CanvasWatchFaceService {
                     .addConnectionCallbacks(this)
                     .addOnConnectionFailedListener(this)
                     .build();
-            googleClient.connect();
+            // Not connected here: the sender connects when there is a request to send, and the
+            // connection is dropped again once it has been idle for a while.
+            mMessageSender = new WearMessageSender(googleClient,
+                    WearContract.CAPABILITY_PHONE_APP);
+            mUpdateRequestManager = new UpdateRequestManager(new UpdateRequestManager.Sender() {
+                @Override
+                public void sendUpdateRequest() {
+                    mMessageSender.send(WearContract.PATH_UPDATE_REQUEST, UPDATE_REQUEST_MESSAGE);
+                    mUpdateTimeHandler.removeMessages(MSG_DISCONNECT);
+                    mUpdateTimeHandler.sendEmptyMessageDelayed(MSG_DISCONNECT, CONNECTION_IDLE_MS);
+                }
+            });
+            mReceivers = new FaceReceivers(SunshineWatchFace.this, mReceiverCallback);
 
             Log.d(LOG_TAG, "onCreate");
 
@@ -190,52 +199,60 @@ public class SunshineWatchFace extends CanvasWatchFaceService {
                     .setCardPeekMode(WatchFaceStyle.PEEK_MODE_VARIABLE)
                     .setBackgroundVisibility(WatchFaceStyle.BACKGROUND_VISIBILITY_INTERRUPTIVE)
                     .setShowSystemUiTime(false)
+                    .setAcceptsTapEvents(true)
                     .build());
 
-            Resources resources = getResources();
-
-
-            mAmString = resources.getString(R.string.wear_am);
-            mPmString = resources.getString(R.string.wear_pm);
-
-            mHourPaint = createTextPaint(TEXT_HOURS_MINS_COLOR, BOLD_TYPEFACE);
-            mMinutePaint = createTextPaint(TEXT_HOURS_MINS_COLOR);
-            mAmPmPaint = createTextPaint(TEXT_AM_PM_COLOR);
-            mColonPaint = createTextPaint(TEXT_COLON_COLOR);
-            mHighPaint = createTextPaint(Color.WHITE, BOLD_TYPEFACE);
-            mLowPaint = createTextPaint(Color.WHITE);
-
-
-            mIconPaint = new Paint();
-            mIconPaint.setColor(Color.BLACK);
-
+            mCadence = new UpdateCadence(
+                    getResources().getBoolean(R.bool.update_every_second));
+            mRenderer = new WatchFaceRenderer(getResources());
+            mRenderState.is24Hour = DateFormat.is24HourFormat(SunshineWatchFace.this);
             mCalendar = Calendar.getInstance();
 
-            IntentFilter messageFilter = new IntentFilter(Intent.ACTION_SEND);
-            MessageReceiver messageReceiver = new MessageReceiver();
-            LocalBroadcastManager.getInstance(SunshineWatchFace.this)
-                    .registerReceiver(messageReceiver, messageFilter);
-
+            // Show the last known forecast from the very first frame, rather than waiting for
+            // the phone to answer an update request.
+            loadCachedForecast();
         }
 
         @Override
         public void onDestroy() {
             mUpdateTimeHandler.removeMessages(MSG_UPDATE_TIME);
+            mUpdateTimeHandler.removeMessages(MSG_DISCONNECT);
+            mReceivers.unregister();
+            mRenderer.release();
+            mMessageSender.release();
             googleClient.disconnect();
             super.onDestroy();
 
         }
 
-        private Paint createTextPaint(int color) {
-            return createTextPaint(color, NORMAL_TYPEFACE);
+        /**
+         * Shows the cached forecast if it is newer than the one on the face. While the face is
+         * hidden the weather is only cached, so this is also how it arrives on the face then.
+         */
+        private void loadCachedForecast() {
+            long shownTimestamp = mPayload.getTimestamp();
+            if (ForecastCache.load(SunshineWatchFace.this, mPayload)
+                    && mPayload.getTimestamp() != shownTimestamp) {
+                mUpdateRequestManager.onDataReceived();
+                applyPayload();
+            }
+        }
+
+        private void updateTimeFormat() {
+            mCalendar.setTimeZone(TimeZone.getDefault());
+            mRenderState.is24Hour = DateFormat.is24HourFormat(SunshineWatchFace.this);
         }
 
-        private Paint createTextPaint(int color, Typeface typeface) {
-            Paint paint = new Paint();
-            paint.setColor(color);
-            paint.setTypeface(typeface);
-            paint.setAntiAlias(true);
-            return paint;
+        /**
+         * Drops the connection to Google Play services until the next update request needs it.
+         */
+        private void disconnect() {
+            mUpdateTimeHandler.removeMessages(MSG_DISCONNECT);
+            if (googleClient.isConnected() || googleClient.isConnecting()) {
+                Log.d(LOG_TAG, "Disconnecting from Google Play services");
+                mMessageSender.stopListening();
+                googleClient.disconnect();
+            }
         }
 
         @Override
@@ -245,8 +262,17 @@ public class SunshineWatchFace extends CanvasWatchFaceService {
             super.onVisibilityChanged(visible);
 
             if (visible) {
-                // Update time zone and date formats, in case they changed while we weren't visible.
-                mCalendar.setTimeZone(TimeZone.getDefault());
+                mReceivers.register();
+
+                // Update time zone and date formats, in case they changed while we weren't visible,
+                // and pick up any weather that arrived in the meantime.
+                updateTimeFormat();
+                loadCachedForecast();
+            } else {
+                mReceivers.unregister();
+                // Requests still queued would only connect again after the disconnect
+                mMessageSender.cancelPending();
+                disconnect();
             }
 
             // Whether the timer should be running depends on whether we're visible (as well as
@@ -261,70 +287,40 @@ public class SunshineWatchFace extends CanvasWatchFaceService {
 
             super.onApplyWindowInsets(insets);
 
-            // Load resources that have alternate values for round watches.
-            Resources resources = SunshineWatchFace.this.getResources();
-            boolean isRound = insets.isRound();
-
-            float textSize = resources.getDimension(isRound
-                    ? R.dimen.weather_text_size_round : R.dimen.weather_text_size);
-            float amPmSize = resources.getDimension(isRound
-                    ? R.dimen.weather_am_pm_size_round : R.dimen.weather_am_pm_size);
-
-            mTimeYOffset = resources.getDimension(isRound
-                    ? R.dimen.time_y_offset_round : R.dimen.time_y_offset);
-            mIconYOffset = resources.getDimension(isRound
-                    ? R.dimen.icon_y_offset_round : R.dimen.icon_y_offset);
-            mTemperatureYOffset = resources.getDimension(isRound
-                    ? R.dimen.temperature_y_offset_round : R.dimen.temperature_y_offset);
-
-            mIconMultiplier = isRound ? 1.5 : 1;
-
-
-            mHourPaint.setTextSize(textSize);
-            mMinutePaint.setTextSize(textSize);
-            mAmPmPaint.setTextSize(amPmSize);
-            mColonPaint.setTextSize(textSize);
-            mHighPaint.setTextSize(textSize);
-            mLowPaint.setTextSize(amPmSize);
-
-            mColonWidth = mColonPaint.measureText(COLON_STRING);
+            mRenderState.round = insets.isRound();
         }
 
         @Override
         public void onPropertiesChanged(Bundle properties) {
             super.onPropertiesChanged(properties);
 
-            boolean burnInProtection = properties.getBoolean(PROPERTY_BURN_IN_PROTECTION, false);
-            mHourPaint.setTypeface(burnInProtection ? NORMAL_TYPEFACE : BOLD_TYPEFACE);
-
-            mLowBitAmbient = properties.getBoolean(PROPERTY_LOW_BIT_AMBIENT, false);
+            mRenderState.burnInProtection =
+                    properties.getBoolean(PROPERTY_BURN_IN_PROTECTION, false);
+            mRenderState.lowBitAmbient = properties.getBoolean(PROPERTY_LOW_BIT_AMBIENT, false);
 
-            Log.d(LOG_TAG, "onPropertiesChanged: burn-in protection = " + burnInProtection
-                    + ", low-bit ambient = " + mLowBitAmbient);
+            Log.d(LOG_TAG, "onPropertiesChanged: burn-in protection = "
+                    + mRenderState.burnInProtection
+                    + ", low-bit ambient = " + mRenderState.lowBitAmbient);
 
         }
 
         @Override
         public void onTimeTick() {
             super.onTimeTick();
-            Log.d(LOG_TAG, "onTimeTick: ambient = " + isInAmbientMode());
-            invalidate();
+            // While the timer runs it already redraws on the minute
+            if (!shouldUpdateTimeHandlerBeRunning()) {
+                invalidate();
+            }
         }
 
         @Override
         public void onAmbientModeChanged(boolean inAmbientMode) {
             super.onAmbientModeChanged(inAmbientMode);
             Log.d(LOG_TAG, "onAmbientModeChanged: " + inAmbientMode);
-            mAmbientMode = inAmbientMode;
-            if (mLowBitAmbient) {
-                boolean antiAlias = !inAmbientMode;
-                ;
-                mHourPaint.setAntiAlias(antiAlias);
-                mMinutePaint.setAntiAlias(antiAlias);
-                mAmPmPaint.setAntiAlias(antiAlias);
-                mColonPaint.setAntiAlias(antiAlias);
-                mHighPaint.setAntiAlias(antiAlias);
-                mLowPaint.setAntiAlias(antiAlias);
+            mRenderState.ambient = inAmbientMode;
+            if (inAmbientMode && mRenderState.forecast != null && mRenderState.day != 0) {
+                // Back to today for when the face wakes up
+                mRenderState.setForecast(mRenderState.forecast, 0);
             }
             invalidate();
 
@@ -333,117 +329,61 @@ public class SunshineWatchFace extends CanvasWatchFaceService {
             updateTimer();
         }
 
-        private String formatTwoDigitNumber(int hour) {
-            return String.format("%02d", hour);
+        /**
+         * A tap shows the next day of the forecast, and after the last one today again. The days
+         * all came in the last message from the phone, so no request is made.
+         */
+        @Override
+        public void onTapCommand(int tapType, int x, int y, long eventTime) {
+            if (tapType == TAP_TYPE_TAP && mRenderState.forecast != null) {
+                int day = (mRenderState.day + 1) % mRenderState.forecast.getDayCount();
+                mRenderState.setForecast(mRenderState.forecast, day);
+                invalidate();
+            }
         }
 
-        private String getAmPmString(int amPm) {
-            return amPm == Calendar.AM ? mAmString : mPmString;
+        @Override
+        public void invalidate() {
+            mFrameStats.onInvalidate(System.nanoTime());
+            super.invalidate();
         }
 
-
         @Override
         public void onDraw(Canvas canvas, Rect bounds) {
-            if (mHighTemperature == null) {
-                new SendToDataLayerThread("/update_path").start();
-            }
-            long now = System.currentTimeMillis();
-            mCalendar.setTimeInMillis(now);
-            boolean is24Hour = DateFormat.is24HourFormat(SunshineWatchFace.this);
-
-            // Draw the background.
-            if (mAmbientMode) {
-                canvas.drawColor(Color.BLACK);
-            } else canvas.drawColor(getColor(R.color.primary));
-
+            Trace.beginSection(TRACE_DRAW);
+            mFrameStats.onDrawStarted(System.nanoTime());
 
-            float newX = 0;
-            String hourString;
-
-            // Build Strings
-            if (is24Hour) {
-                hourString = formatTwoDigitNumber(mCalendar.get(Calendar.HOUR_OF_DAY));
-            } else {
-                int hour = mCalendar.get(Calendar.HOUR);
-                if (hour == 0) {
-                    hour = 12;
-                }
-                hourString = String.valueOf(hour);
-            }
-
-            String minuteString = formatTwoDigitNumber(mCalendar.get(Calendar.MINUTE));
-            String amPmString = getAmPmString(mCalendar.get(Calendar.AM_PM));
-            newX += mHourPaint.measureText(hourString);
-            newX += mColonWidth;
-            newX += mMinutePaint.measureText(minuteString);
-            if (!is24Hour) {
-                newX += mHourPaint.measureText(hourString);
-            }
-            float x = bounds.centerX() - newX / 2;
-            float xTemperature = 0;
-            float xIcon = 0;
-            if (mHighTemperature != null && mLowTemperature != null) {
-                xTemperature = bounds.centerX() - (mHighPaint.measureText(
-                        mHighTemperature + " " + mLowTemperature) / 2);
-            }
-
-
-            // Draw hour
-            canvas.drawText(hourString, x, mTimeYOffset, mHourPaint);
-            x += mHourPaint.measureText(hourString);
-
-            // Draw first colon (between hour and minute).
-            canvas.drawText(COLON_STRING, x, mTimeYOffset, mColonPaint);
-            x += mColonWidth;
-
-            // Draw the minutes.
-            canvas.drawText(minuteString, x, mTimeYOffset, mMinutePaint);
-            x += mMinutePaint.measureText(minuteString);
-
-            // If we're in 12-hour mode, draw AM/PM
-            if (!is24Hour) {
-                x += mColonWidth;
-                canvas.drawText(amPmString, x, mTimeYOffset, mAmPmPaint);
+            long now = System.currentTimeMillis();
+            boolean stale = ForecastCache.isStale(mPayload, now);
+            if (!mRenderState.hasWeather() || stale) {
+                mUpdateRequestManager.requestUpdate(SystemClock.elapsedRealtime());
             }
-
-            // Only render info if there is no peek card, so they do not bleed into each other
-            // in ambient mode.
-            /**
-             * Handle drawing additional info here
-             **/
-            if (getPeekCardPosition().isEmpty() && !mAmbientMode) {
-                if (mHighTemperature != null && mLowTemperature != null) {
-                    canvas.drawText(
-                            mHighTemperature,
-                            xTemperature,
-                            mTemperatureYOffset,
-                            mHighPaint);
-
-                    xTemperature += mHighPaint.measureText(mHighTemperature + " ");
-
-                    canvas.drawText(mLowTemperature,
-                            xTemperature,
-                            mTemperatureYOffset,
-                            mLowPaint);
-                }
-                if (mWeatherId > 0) {
-                    Drawable drawable = getResources().getDrawable(Utilities.getIconResourceForWeatherCondition(mWeatherId));
-                    Bitmap weatherIcon = ((BitmapDrawable) drawable).getBitmap();
-
-                    Bitmap scaledWeatherIcon =
-                            Bitmap.createScaledBitmap(weatherIcon,
-                                    (int) (mIconMultiplier * mHighPaint.getTextSize()),
-                                    (int) (mIconMultiplier * mHighPaint.getTextSize()), true);
-
-                    canvas.drawBitmap(scaledWeatherIcon,
-                            bounds.centerY() - scaledWeatherIcon.getHeight() / 2,
-                            mIconYOffset,
-                            null);
-                }
-
+            mCalendar.setTimeInMillis(now);
+            mRenderState.setTime(mCalendar);
+            mRenderState.bounds.set(bounds);
+            mRenderState.stale = stale;
+            mRenderState.showWeather = getPeekCardPosition().isEmpty();
+            mRenderer.draw(canvas, mRenderState);
+
+            mFrameStats.onDrawFinished(System.nanoTime());
+            Trace.endSection();
+
+            if (mFrameStats.getFrameCount() % LOG_STATS_EVERY_FRAMES == 0
+                    && Log.isLoggable(LOG_TAG, Log.VERBOSE)) {
+                Log.v(LOG_TAG, "Frame stats: " + mFrameStats);
             }
+        }
 
-
+        /**
+         * Adds the frame stats to the service's dumpsys output, for instance
+         * {@code adb shell dumpsys activity service .SunshineWatchFace}.
+         */
+        @Override
+        protected void dump(String prefix, FileDescriptor fd, PrintWriter out, String[] args) {
+            super.dump(prefix, fd, out, args);
+            out.print(prefix);
+            out.println("Frame stats:");
+            mFrameStats.dump(prefix + "  ", out);
         }
 
         /**
@@ -467,30 +407,6 @@ public class SunshineWatchFace extends CanvasWatchFaceService {
             return isVisible() && !isInAmbientMode();
         }
 
-        class SendToDataLayerThread extends Thread {
-            String path;
-            String message;
-
-            // Constructor to send a message to the data layer
-            SendToDataLayerThread(String p) {
-                path = p;
-                message = "updater";
-            }
-
-            public void run() {
-                NodeApi.GetConnectedNodesResult nodes = Wearable.NodeApi.getConnectedNodes(googleClient).await();
-                for (Node node : nodes.getNodes()) {
-                    MessageApi.SendMessageResult result = Wearable.MessageApi.sendMessage(googleClient, node.getId(), path, message.getBytes()).await();
-                    if (result.getStatus().isSuccess()) {
-                        Log.v(LOG_TAG, "Update Request sent to: " + node.getDisplayName());
-                    } else {
-                        // Log an error
-                        Log.v(LOG_TAG, "ERROR: failed to send Update Request Message");
-                    }
-                }
-            }
-        }
-
 
     }
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.example.android.sunshine.app;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * When the interactive watch face redraws on its own. The face shows hours and minutes only, so
+ * by default it redraws on minute boundaries: 60 frames an hour instead of 3600. Weather that
+ * arrives in between is drawn straight away, independently of the cadence.
+ *
+ * Seconds mode keeps redrawing on every second, for a face that shows something that changes
+ * faster than the minute.
+ */
+public class UpdateCadence {
+
+    public static final long MINUTE_MS = TimeUnit.MINUTES.toMillis(1);
+    public static final long SECOND_MS = TimeUnit.SECONDS.toMillis(1);
+
+    private final long mIntervalMs;
+
+    /**
+     * @param secondsMode true to redraw every second rather than every minute
+     */
+    public UpdateCadence(boolean secondsMode) {
+        mIntervalMs = secondsMode ? SECOND_MS : MINUTE_MS;
+    }
+
+    public long getIntervalMs() {
+        return mIntervalMs;
+    }
+
+    public boolean isSecondsMode() {
+        return mIntervalMs == SECOND_MS;
+    }
+
+    /**
+     * @param now the current time, from {@link System#currentTimeMillis()}
+     * @return how long to wait for the next redraw, which falls exactly on the next boundary
+     */
+    public long getDelayMs(long now) {
+        return mIntervalMs - (now % mIntervalMs);
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.android.sunshine.app;
+
+/**
+ * Decides when the watch face may ask the phone for fresh weather. The face wants data on every
+ * frame until it has some, but each request can make the phone sync, so at most one request is
+ * outstanding at a time. A request that goes unanswered expires after a backoff period, which
+ * doubles with every unanswered attempt. Receiving data cancels the outstanding request and
+ * resets the backoff.
+ */
+public class UpdateRequestManager {
+
+    static final long INITIAL_BACKOFF_MS = 10 * 1000;
+    static final long MAX_BACKOFF_MS = 30 * 60 * 1000;
+
+    /**
+     * Sends the actual request to the phone.
+     */
+    public interface Sender {
+        void sendUpdateRequest();
+    }
+
+    private final Sender mSender;
+
+    private boolean mOutstanding;
+    private long mExpiresAt;
+    private long mBackoffMs = INITIAL_BACKOFF_MS;
+
+    private int mSentCount;
+    private int mSuppressedCount;
+    private int mAnsweredCount;
+
+    public UpdateRequestManager(Sender sender) {
+        mSender = sender;
+    }
+
+    /**
+     * Asks the phone for weather, unless a request is already outstanding.
+     *
+     * @param now the current time, from {@link android.os.SystemClock#elapsedRealtime()}
+     * @return true if a request was sent
+     */
+    public boolean requestUpdate(long now) {
+        if (mOutstanding && now < mExpiresAt) {
+            mSuppressedCount++;
+            return false;
+        }
+        if (mOutstanding) {
+            // The previous request went unanswered, wait longer before the next one expires
+            mBackoffMs = Math.min(mBackoffMs * 2, MAX_BACKOFF_MS);
+        }
+        mOutstanding = true;
+        mExpiresAt = now + mBackoffMs;
+        mSentCount++;
+        mSender.sendUpdateRequest();
+        return true;
+    }
+
+    /**
+     * Called when weather arrives from the phone, whether or not it was requested.
+     */
+    public void onDataReceived() {
+        if (mOutstanding) {
+            mAnsweredCount++;
+        }
+        mOutstanding = false;
+        mBackoffMs = INITIAL_BACKOFF_MS;
+    }
+
+    public boolean isOutstanding() {
+        return mOutstanding;
+    }
+
+    /**
+     * @return how long the current or next request waits for an answer before another is sent
+     */
+    long getBackoffMs() {
+        return mBackoffMs;
+    }
+
+    public int getSentCount() {
+        return mSentCount;
+    }
+
+    public int getSuppressedCount() {
+        return mSuppressedCount;
+    }
+
+    public int getAnsweredCount() {
+        return mAnsweredCount;
+    }
+}
@@ -1,10 +1,25 @@
 package com.example.android.sunshine.app;
 
+import android.content.Context;
+
+import com.example.android.sunshine.app.wear.WeatherPayload;
+
 /**
  * Created by Joopk on 2/24/2016.
  */
 public class Utilities {
 
+    /**
+     * Formats a temperature received from the phone for display.
+     *
+     * @param tenthsCelsius temperature in tenths of a degree Celsius
+     * @param metric whether the user prefers metric units on the phone
+     */
+    public static String formatTemperature(Context context, int tenthsCelsius, boolean metric) {
+        return context.getString(R.string.format_temperature,
+                WeatherPayload.toDisplayDegrees(tenthsCelsius, metric));
+    }
+
     public static int getIconResourceForWeatherCondition(int weatherId) {
         // Based on weather code data found at:
         // http://bugs.openweathermap.org/projects/api/wiki/Weather_Condition_Codes
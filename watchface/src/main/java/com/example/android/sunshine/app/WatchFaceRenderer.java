@@ -0,0 +1,454 @@
+package com.example.android.sunshine.app;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.Typeface;
+
+/**
+ * Draws the Sunshine watch face to any Canvas from a {@link RenderState}. It knows nothing of
+ * the watch face service: the Engine keeps the state current and hands it over on every frame,
+ * and tests and benchmarks can do the same with a software Canvas.
+ *
+ * What the renderer keeps between frames are caches derived from the state, brought up to date
+ * at the start of each frame. Steady-state frames do not allocate: the digit strings are built
+ * once, positions come from a {@link LayoutSpec} that is only recomputed when the text, the
+ * bounds or the text size change, and the weather icons of every day of the forecast are scaled
+ * once per size, when the forecast arrives.
+ *
+ * Only the time changes from one frame to the next, so the background and the weather are
+ * rendered into an offscreen layer that is redrawn only when the weather, the insets or the peek
+ * card change. A frame is then a blit of the layer plus the time, which is itself copied glyph
+ * by glyph from {@link GlyphAtlas atlases} rendered whenever the text size changes.
+ *
+ * Ambient mode is drawn by an {@link AmbientRenderer} of its own.
+ */
+public class WatchFaceRenderer {
+
+    private static final Typeface BOLD_TYPEFACE =
+            Typeface.create(Typeface.SANS_SERIF, Typeface.BOLD);
+    private static final Typeface NORMAL_TYPEFACE =
+            Typeface.create(Typeface.SANS_SERIF, Typeface.NORMAL);
+
+    private static final int TEXT_HOURS_MINS_COLOR = Color.WHITE;
+    private static final int TEXT_AM_PM_COLOR = Color.WHITE;
+    private static final int TEXT_COLON_COLOR = Color.WHITE;
+
+    private static final String COLON_STRING = ":";
+
+    /**
+     * Alpha the weather is drawn with once the forecast is older than
+     * {@link ForecastCache#STALE_AFTER_MS}.
+     */
+    private static final int STALE_ALPHA = 0x80;
+
+    private static final int BURN_IN_SHIFT_DP = 2;
+
+    /* "00" to "59", for minutes and the hours of a 24-hour clock */
+    private static final String[] TWO_DIGIT_NUMBERS = new String[60];
+    /* "0" to "12", for the hours of a 12-hour clock */
+    private static final String[] NUMBERS = new String[13];
+
+    static {
+        for (int i = 0; i < TWO_DIGIT_NUMBERS.length; i++) {
+            TWO_DIGIT_NUMBERS[i] = String.format("%02d", i);
+        }
+        for (int i = 0; i < NUMBERS.length; i++) {
+            NUMBERS[i] = String.valueOf(i);
+        }
+    }
+
+    /**
+     * @return every character the hour and minute tables are made of, as strings of length one
+     */
+    private static String[] getDigitGlyphs() {
+        StringBuilder digits = new StringBuilder();
+        for (String number : TWO_DIGIT_NUMBERS) {
+            appendMissingChars(digits, number);
+        }
+        for (String number : NUMBERS) {
+            appendMissingChars(digits, number);
+        }
+        String[] glyphs = new String[digits.length()];
+        for (int i = 0; i < glyphs.length; i++) {
+            glyphs[i] = String.valueOf(digits.charAt(i));
+        }
+        return glyphs;
+    }
+
+    private static void appendMissingChars(StringBuilder builder, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (builder.indexOf(String.valueOf(text.charAt(i))) < 0) {
+                builder.append(text.charAt(i));
+            }
+        }
+    }
+
+    private final Resources mResources;
+    private final WeatherIconCache mIconCache;
+    private final AmbientRenderer mAmbientRenderer;
+    private final int mBackgroundColor;
+    private final String mAmString;
+    private final String mPmString;
+
+    private final Paint mHourPaint;
+    private final Paint mMinutePaint;
+    private final Paint mAmPmPaint;
+    private final Paint mColonPaint;
+    private final Paint mIconPaint;
+    private final Paint mHighPaint;
+    private final Paint mLowPaint;
+
+    private final GlyphAtlas mHourGlyphs;
+    private final GlyphAtlas mMinuteGlyphs;
+    private final GlyphAtlas mColonGlyphs;
+    private final GlyphAtlas mAmPmGlyphs;
+    private boolean mGlyphAtlasEnabled = true;
+
+    private float mColonWidth;
+    private float mTimeYOffset;
+    private float mIconYOffset;
+    private float mTemperatureYOffset;
+    private double mIconMultiplier = 1;
+
+    /* The state the caches were last brought up to date with */
+    private boolean mInsetsApplied;
+    private boolean mRound;
+    private String mHighTemperature;
+    private String mLowTemperature;
+    private int mWeatherId;
+    private String mDayLabel;
+    private DailyForecast mForecast;
+    private boolean mStale;
+
+    private final LayoutSpec mLayout = new LayoutSpec();
+    private final Rect mLayoutBounds = new Rect();
+    private boolean mTimeLayoutStale = true;
+    private boolean mWeatherLayoutStale = true;
+    /* The text the time was laid out for. Strings come from the tables above, so comparing
+       references is enough to tell whether the text changed. */
+    private String mLaidOutHour;
+    private String mLaidOutMinute;
+    private String mLaidOutAmPm;
+
+    private boolean mLayerCacheEnabled = true;
+    private Bitmap mLayer;
+    private Canvas mLayerCanvas;
+    private boolean mLayerDirty = true;
+    private boolean mLayerShowsWeather;
+
+    public WatchFaceRenderer(Resources resources) {
+        mResources = resources;
+        mIconCache = new WeatherIconCache(resources);
+        mAmbientRenderer = new AmbientRenderer(
+                Math.round(BURN_IN_SHIFT_DP * resources.getDisplayMetrics().density));
+        mBackgroundColor = resources.getColor(R.color.primary);
+        mAmString = resources.getString(R.string.wear_am);
+        mPmString = resources.getString(R.string.wear_pm);
+
+        mHourPaint = createTextPaint(TEXT_HOURS_MINS_COLOR, BOLD_TYPEFACE);
+        mMinutePaint = createTextPaint(TEXT_HOURS_MINS_COLOR, NORMAL_TYPEFACE);
+        mAmPmPaint = createTextPaint(TEXT_AM_PM_COLOR, NORMAL_TYPEFACE);
+        mColonPaint = createTextPaint(TEXT_COLON_COLOR, NORMAL_TYPEFACE);
+        mHighPaint = createTextPaint(Color.WHITE, BOLD_TYPEFACE);
+        mLowPaint = createTextPaint(Color.WHITE, NORMAL_TYPEFACE);
+
+        mIconPaint = new Paint();
+        mIconPaint.setColor(Color.BLACK);
+
+        String[] digits = getDigitGlyphs();
+        mHourGlyphs = new GlyphAtlas(digits);
+        mMinuteGlyphs = new GlyphAtlas(digits);
+        mColonGlyphs = new GlyphAtlas(COLON_STRING);
+        mAmPmGlyphs = new GlyphAtlas(mAmString, mPmString);
+    }
+
+    private static Paint createTextPaint(int color, Typeface typeface) {
+        Paint paint = new Paint();
+        paint.setColor(color);
+        paint.setTypeface(typeface);
+        paint.setAntiAlias(true);
+        return paint;
+    }
+
+    private static boolean equal(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    /**
+     * Turns the offscreen layer off, so every frame draws the background and the weather
+     * directly. Used to compare the two in benchmarks.
+     */
+    void setLayerCacheEnabled(boolean enabled) {
+        mLayerCacheEnabled = enabled;
+        mLayerDirty = true;
+    }
+
+    /**
+     * Turns the glyph atlases off, so the time is drawn as text. Used to compare the two in
+     * benchmarks.
+     */
+    void setGlyphAtlasEnabled(boolean enabled) {
+        mGlyphAtlasEnabled = enabled;
+    }
+
+    /**
+     * @return the positions the last frame was drawn at
+     */
+    LayoutSpec getLayout() {
+        return mLayout;
+    }
+
+    /**
+     * Frees the offscreen layer and the glyph atlases. They are created again by the next
+     * {@link #draw}.
+     */
+    public void release() {
+        releaseLayer();
+        releaseGlyphs();
+    }
+
+    private void releaseLayer() {
+        if (mLayer != null) {
+            mLayer.recycle();
+            mLayer = null;
+            mLayerCanvas = null;
+        }
+    }
+
+    private void releaseGlyphs() {
+        mHourGlyphs.release();
+        mMinuteGlyphs.release();
+        mColonGlyphs.release();
+        mAmPmGlyphs.release();
+    }
+
+    /**
+     * Brings the caches up to date with {@code state}. Only what changed is redone.
+     */
+    private void update(RenderState state) {
+        if (!mInsetsApplied || state.round != mRound) {
+            applyInsets(state.round);
+        }
+        if (!mLayoutBounds.equals(state.bounds)) {
+            mLayoutBounds.set(state.bounds);
+            mTimeLayoutStale = true;
+            mWeatherLayoutStale = true;
+            mLayerDirty = true;
+        }
+
+        mAmbientRenderer.setLowBitAmbient(state.lowBitAmbient);
+        mAmbientRenderer.setBurnInProtection(state.burnInProtection);
+
+        if (!equal(state.highTemperature, mHighTemperature)
+                || !equal(state.lowTemperature, mLowTemperature)
+                || state.weatherId != mWeatherId
+                || !equal(state.dayLabel, mDayLabel)) {
+            mHighTemperature = state.highTemperature;
+            mLowTemperature = state.lowTemperature;
+            mWeatherId = state.weatherId;
+            mDayLabel = state.dayLabel;
+            mWeatherLayoutStale = true;
+            mLayerDirty = true;
+        }
+        if (state.forecast != mForecast) {
+            mForecast = state.forecast;
+            mWeatherLayoutStale = true;
+        }
+
+        if (state.stale != mStale) {
+            mStale = state.stale;
+            int alpha = mStale ? STALE_ALPHA : 0xff;
+            mHighPaint.setAlpha(alpha);
+            mLowPaint.setAlpha(alpha);
+            mIconPaint.setAlpha(alpha);
+            mLayerDirty = true;
+        }
+    }
+
+    /**
+     * Loads the dimensions that have alternate values for round watches.
+     */
+    private void applyInsets(boolean isRound) {
+        mInsetsApplied = true;
+        mRound = isRound;
+
+        float textSize = mResources.getDimension(isRound
+                ? R.dimen.weather_text_size_round : R.dimen.weather_text_size);
+        float amPmSize = mResources.getDimension(isRound
+                ? R.dimen.weather_am_pm_size_round : R.dimen.weather_am_pm_size);
+
+        mTimeYOffset = mResources.getDimension(isRound
+                ? R.dimen.time_y_offset_round : R.dimen.time_y_offset);
+        mIconYOffset = mResources.getDimension(isRound
+                ? R.dimen.icon_y_offset_round : R.dimen.icon_y_offset);
+        mTemperatureYOffset = mResources.getDimension(isRound
+                ? R.dimen.temperature_y_offset_round : R.dimen.temperature_y_offset);
+
+        mIconMultiplier = isRound ? 1.5 : 1;
+
+        mHourPaint.setTextSize(textSize);
+        mMinutePaint.setTextSize(textSize);
+        mAmPmPaint.setTextSize(amPmSize);
+        mColonPaint.setTextSize(textSize);
+        mHighPaint.setTextSize(textSize);
+        mLowPaint.setTextSize(amPmSize);
+
+        mAmbientRenderer.setTextSizes(textSize, amPmSize, mTimeYOffset);
+
+        mColonWidth = mColonPaint.measureText(COLON_STRING);
+        mTimeLayoutStale = true;
+        mWeatherLayoutStale = true;
+        mLayerDirty = true;
+        releaseGlyphs();
+    }
+
+    private void layOutTime(String hourString, String minuteString, String amPmString) {
+        mLayout.layOutTime(mLayoutBounds, mTimeYOffset,
+                mHourPaint.measureText(hourString), mColonWidth,
+                mMinutePaint.measureText(minuteString),
+                amPmString == null ? 0 : mAmPmPaint.measureText(amPmString));
+        mLaidOutHour = hourString;
+        mLaidOutMinute = minuteString;
+        mLaidOutAmPm = amPmString;
+        mTimeLayoutStale = false;
+    }
+
+    private void layOutWeather() {
+        float labelWidth = 0;
+        float highWidth = 0;
+        float lowWidth = 0;
+        if (mHighTemperature != null && mLowTemperature != null) {
+            if (mDayLabel != null) {
+                labelWidth = mLowPaint.measureText(mDayLabel + " ");
+            }
+            highWidth = mHighPaint.measureText(mHighTemperature + " ");
+            lowWidth = mLowPaint.measureText(mLowTemperature);
+        }
+        mLayout.layOutWeather(mLayoutBounds, mTemperatureYOffset, labelWidth, highWidth,
+                lowWidth, mIconYOffset, (int) (mIconMultiplier * mHighPaint.getTextSize()));
+        mWeatherLayoutStale = false;
+
+        if (mForecast != null) {
+            // Scale the icons of every day now, so that switching days never decodes a bitmap
+            for (int day = 0; day < mForecast.getDayCount(); day++) {
+                mIconCache.get(mForecast.getWeatherId(day), mLayout.iconSize);
+            }
+        }
+    }
+
+    private static String getHourString(RenderState state) {
+        if (state.is24Hour) {
+            return TWO_DIGIT_NUMBERS[state.hourOfDay];
+        }
+        int hour = state.hourOfDay % 12;
+        return NUMBERS[hour == 0 ? 12 : hour];
+    }
+
+    private String getAmPmString(RenderState state) {
+        return state.hourOfDay < 12 ? mAmString : mPmString;
+    }
+
+    public void draw(Canvas canvas, RenderState state) {
+        update(state);
+
+        if (state.ambient) {
+            drawAmbient(canvas, state);
+            return;
+        }
+
+        Rect bounds = state.bounds;
+        if (!mLayerCacheEnabled) {
+            drawBackground(canvas, bounds, state.showWeather);
+        } else {
+            if (mLayer == null || mLayer.getWidth() != bounds.width()
+                    || mLayer.getHeight() != bounds.height()) {
+                releaseLayer();
+                mLayer = Bitmap.createBitmap(bounds.width(), bounds.height(),
+                        Bitmap.Config.ARGB_8888);
+                mLayerCanvas = new Canvas(mLayer);
+                mLayerDirty = true;
+            }
+            if (mLayerDirty || state.showWeather != mLayerShowsWeather) {
+                mLayerCanvas.save();
+                mLayerCanvas.translate(-bounds.left, -bounds.top);
+                drawBackground(mLayerCanvas, bounds, state.showWeather);
+                mLayerCanvas.restore();
+                mLayerDirty = false;
+                mLayerShowsWeather = state.showWeather;
+            }
+            canvas.drawBitmap(mLayer, bounds.left, bounds.top, null);
+        }
+
+        String hourString = getHourString(state);
+        String minuteString = TWO_DIGIT_NUMBERS[state.minute];
+        String amPmString = state.is24Hour ? null : getAmPmString(state);
+        if (mTimeLayoutStale || hourString != mLaidOutHour || minuteString != mLaidOutMinute
+                || amPmString != mLaidOutAmPm) {
+            layOutTime(hourString, minuteString, amPmString);
+        }
+
+        if (mGlyphAtlasEnabled && !mHourGlyphs.isBuilt()) {
+            mHourGlyphs.build(mHourPaint);
+            mMinuteGlyphs.build(mMinutePaint);
+            mColonGlyphs.build(mColonPaint);
+            mAmPmGlyphs.build(mAmPmPaint);
+        }
+
+        drawTimeText(canvas, mHourGlyphs, hourString, mLayout.hourX, mHourPaint);
+        drawTimeText(canvas, mColonGlyphs, COLON_STRING, mLayout.colonX, mColonPaint);
+        drawTimeText(canvas, mMinuteGlyphs, minuteString, mLayout.minuteX, mMinutePaint);
+        if (amPmString != null) {
+            drawTimeText(canvas, mAmPmGlyphs, amPmString, mLayout.amPmX, mAmPmPaint);
+        }
+    }
+
+    private void drawTimeText(Canvas canvas, GlyphAtlas glyphs, String text, float x,
+                              Paint paint) {
+        if (mGlyphAtlasEnabled) {
+            glyphs.draw(canvas, text, x, mLayout.timeY);
+        } else {
+            canvas.drawText(text, x, mLayout.timeY, paint);
+        }
+    }
+
+    private void drawAmbient(Canvas canvas, RenderState state) {
+        // Ambient frames come once a minute, so the minute of the day moves the time to the
+        // next burn-in position on every frame
+        mAmbientRenderer.draw(canvas, state.bounds, getHourString(state),
+                TWO_DIGIT_NUMBERS[state.minute], state.is24Hour ? null : getAmPmString(state),
+                state.hourOfDay * 60 + state.minute);
+    }
+
+    /**
+     * Draws everything but the time: the background and, unless left out, the weather.
+     */
+    private void drawBackground(Canvas canvas, Rect bounds, boolean showWeather) {
+        canvas.drawColor(mBackgroundColor);
+
+        // Weather is left out while a card is peeking, so the two do not bleed into each other.
+        if (!showWeather) {
+            return;
+        }
+
+        if (mWeatherLayoutStale) {
+            layOutWeather();
+        }
+        if (mHighTemperature != null && mLowTemperature != null) {
+            if (mDayLabel != null) {
+                canvas.drawText(mDayLabel, mLayout.labelX, mLayout.temperatureY, mLowPaint);
+            }
+            canvas.drawText(mHighTemperature, mLayout.highX, mLayout.temperatureY, mHighPaint);
+            canvas.drawText(mLowTemperature, mLayout.lowX, mLayout.temperatureY, mLowPaint);
+        }
+        if (mWeatherId > 0) {
+            Bitmap icon = mIconCache.get(mWeatherId, mLayout.iconSize);
+            if (icon != null) {
+                canvas.drawBitmap(icon, mLayout.iconX, mLayout.iconY, mIconPaint);
+            }
+        }
+    }
+}
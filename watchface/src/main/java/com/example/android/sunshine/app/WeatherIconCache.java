@@ -0,0 +1,51 @@
+package com.example.android.sunshine.app;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.SparseArray;
+
+/**
+ * Weather icons decoded and scaled to the size the face draws them at. Each icon is scaled once
+ * per size, so looking one up on a frame does not allocate. Weather ids sharing an icon share
+ * the scaled bitmap.
+ */
+public class WeatherIconCache {
+
+    private final Resources mResources;
+    private final SparseArray<Bitmap> mIcons = new SparseArray<Bitmap>();
+    private int mSize;
+
+    public WeatherIconCache(Resources resources) {
+        mResources = resources;
+    }
+
+    /**
+     * @return the icon for {@code weatherId} scaled to {@code size} pixels square, or null if
+     * there is no icon for that condition
+     */
+    public Bitmap get(int weatherId, int size) {
+        if (size != mSize) {
+            mIcons.clear();
+            mSize = size;
+        }
+        int resourceId = Utilities.getIconResourceForWeatherCondition(weatherId);
+        if (resourceId == -1 || size <= 0) {
+            return null;
+        }
+        Bitmap icon = mIcons.get(resourceId);
+        if (icon == null) {
+            Bitmap source = BitmapFactory.decodeResource(mResources, resourceId);
+            icon = Bitmap.createScaledBitmap(source, size, size, true);
+            if (icon != source) {
+                source.recycle();
+            }
+            mIcons.put(resourceId, icon);
+        }
+        return icon;
+    }
+
+    public void clear() {
+        mIcons.clear();
+    }
+}